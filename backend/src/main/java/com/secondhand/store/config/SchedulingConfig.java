@@ -0,0 +1,12 @@
+package com.secondhand.store.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (write-behind flushes and the like)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,10 @@
+package com.secondhand.store.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * One group of an analytics query: its key (a day, month, status, city or id),
+ * how many orders (or units, for item queries) and their amount
+ */
+public record AnalyticsRow(String group, long count, BigDecimal amount) {
+}
@@ -0,0 +1,10 @@
+package com.secondhand.store.dto;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * When the analytics snapshot was taken, how big it is and how long loading it took
+ */
+public record AnalyticsSnapshotInfo(Instant takenAt, int orders, int items, int cities, Duration loadTime) {
+}
@@ -0,0 +1,18 @@
+package com.secondhand.store.dto;
+
+import com.secondhand.store.entity.Order;
+
+/**
+ * Shipping, contact and payment details the buyer enters at checkout
+ */
+public record CheckoutRequest(
+        String shippingAddress,
+        String shippingCity,
+        String shippingState,
+        String shippingPostalCode,
+        String shippingCountry,
+        String phoneNumber,
+        String email,
+        Order.PaymentMethod paymentMethod,
+        String notes) {
+}
@@ -0,0 +1,14 @@
+package com.secondhand.store.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * The order a cart was turned into: its number, total, and how many lines and units it has
+ */
+public record CheckoutResult(
+        Long orderId,
+        String orderNumber,
+        BigDecimal totalAmount,
+        int lineCount,
+        int unitCount) {
+}
@@ -0,0 +1,20 @@
+package com.secondhand.store.dto;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * State of a write-behind counter. flushLag is how long the oldest unflushed
+ * delta has been waiting, i.e. how far the stored column is behind.
+ */
+public record CounterStats(
+        String counter,
+        long pendingDelta,
+        int trackedProducts,
+        Duration flushLag,
+        Instant lastFlushAt,
+        Duration lastFlushDuration,
+        long lastFlushedDelta,
+        long totalFlushedDelta,
+        long failedFlushes) {
+}
@@ -0,0 +1,10 @@
+package com.secondhand.store.dto;
+
+import java.util.List;
+
+/**
+ * One slice of a keyset-paginated listing. Pass nextCursor back to get the
+ * following slice; it is null on the last one. No total count is computed.
+ */
+public record CursorPage<T>(List<T> content, String nextCursor, boolean hasNext) {
+}
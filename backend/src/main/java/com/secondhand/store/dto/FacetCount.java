@@ -0,0 +1,8 @@
+package com.secondhand.store.dto;
+
+/**
+ * Number of results carrying one facet value. The key is what a client sends back
+ * as a filter (category id, condition name, city, price range); label is for display.
+ */
+public record FacetCount(String key, String label, long count) {
+}
@@ -0,0 +1,17 @@
+package com.secondhand.store.dto;
+
+import com.secondhand.store.entity.Product;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/**
+ * A page of search results plus facet counts over the full result set
+ */
+public record FacetedSearchResult(
+        Page<Product> products,
+        List<FacetCount> categories,
+        List<FacetCount> conditions,
+        List<FacetCount> cities,
+        List<FacetCount> priceRanges) {
+}
@@ -0,0 +1,20 @@
+package com.secondhand.store.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk status change: rows read, orders changed, rows that were
+ * already applied, and why each remaining row was rejected
+ */
+public record FulfillmentReport(
+        int received,
+        int updated,
+        int unchanged,
+        List<Failure> failures) {
+
+    /**
+     * row is the 1-based position of the rejected row in the input
+     */
+    public record Failure(int row, String orderNumber, String reason) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.secondhand.store.dto;
+
+import com.secondhand.store.entity.Order;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Optional filters of an analytics query. Null (or empty) fields are not applied;
+ * days are order dates, both inclusive. categoryId and sellerId only apply to item queries.
+ */
+public record OrderAnalyticsFilter(
+        LocalDate from,
+        LocalDate to,
+        Set<Order.OrderStatus> statuses,
+        Set<Order.PaymentStatus> paymentStatuses,
+        String city,
+        Long categoryId,
+        Long sellerId) {
+
+    public static OrderAnalyticsFilter between(LocalDate from, LocalDate to) {
+        return new OrderAnalyticsFilter(from, to, null, null, null, null, null);
+    }
+
+    public OrderAnalyticsFilter withStatuses(Set<Order.OrderStatus> statuses) {
+        return new OrderAnalyticsFilter(from, to, statuses, paymentStatuses, city, categoryId, sellerId);
+    }
+}
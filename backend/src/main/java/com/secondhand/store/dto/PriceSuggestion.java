@@ -0,0 +1,30 @@
+package com.secondhand.store.dto;
+
+import com.secondhand.store.entity.Product;
+
+import java.math.BigDecimal;
+
+/**
+ * Suggested price range for a new listing: the 25th percentile, median and 75th
+ * percentile of comparable prices. basis says which prices they come from and
+ * sampleSize how many there were.
+ */
+public record PriceSuggestion(
+        Long categoryId,
+        Product.ProductCondition condition,
+        BigDecimal low,
+        BigDecimal median,
+        BigDecimal high,
+        long sampleSize,
+        Basis basis) {
+
+    public enum Basis {
+        // Prices paid for items in this category and condition
+        SOLD,
+        // Asking prices of available items in this category and condition
+        LISTED,
+        // Too few of the above: prices paid / asked in the category, any condition
+        SOLD_ANY_CONDITION,
+        LISTED_ANY_CONDITION
+    }
+}
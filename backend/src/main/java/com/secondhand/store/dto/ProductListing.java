@@ -0,0 +1,20 @@
+package com.secondhand.store.dto;
+
+import com.secondhand.store.entity.Product;
+
+import java.math.BigDecimal;
+
+/**
+ * Read model for product lists and cards: just what a listing shows,
+ * fetched in one query without loading Product entities.
+ */
+public record ProductListing(
+        Long id,
+        String name,
+        BigDecimal price,
+        Product.ProductCondition condition,
+        String imageUrl,
+        String city,
+        String sellerName,
+        String categoryName) {
+}
@@ -0,0 +1,9 @@
+package com.secondhand.store.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Units sold and revenue of one product over a range; averagePrice is revenue per unit
+ */
+public record ProductSales(Long productId, String productName, long unitsSold, BigDecimal revenue, BigDecimal averagePrice) {
+}
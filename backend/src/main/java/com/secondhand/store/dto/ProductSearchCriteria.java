@@ -0,0 +1,25 @@
+package com.secondhand.store.dto;
+
+import com.secondhand.store.entity.Product;
+
+import java.math.BigDecimal;
+
+/**
+ * Optional product search filters. Null (or blank) fields are not applied.
+ */
+public record ProductSearchCriteria(
+        String name,
+        Long categoryId,
+        BigDecimal minPrice,
+        BigDecimal maxPrice,
+        Product.ProductCondition condition,
+        String city) {
+
+    public boolean hasName() {
+        return name != null && !name.isBlank();
+    }
+
+    public boolean hasCity() {
+        return city != null && !city.isBlank();
+    }
+}
@@ -0,0 +1,7 @@
+package com.secondhand.store.dto;
+
+/**
+ * A search hit together with its relevance or similarity score (higher is better)
+ */
+public record ScoredResult<T>(T result, double score) {
+}
@@ -0,0 +1,20 @@
+package com.secondhand.store.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A seller's delivered sales between two days (inclusive): orders, units, revenue,
+ * average price per unit and best selling products
+ */
+public record SellerSalesSummary(
+        Long sellerId,
+        LocalDate from,
+        LocalDate to,
+        long orderCount,
+        long unitsSold,
+        BigDecimal revenue,
+        BigDecimal averagePrice,
+        List<ProductSales> topProducts) {
+}
@@ -0,0 +1,10 @@
+package com.secondhand.store.dto;
+
+/**
+ * One row of a carrier tracking import: the order that was handed to the carrier and its tracking number
+ */
+public record TrackingUpdate(
+        String orderNumber,
+        String trackingNumber,
+        String carrier) {
+}
@@ -1,5 +1,6 @@
 package com.secondhand.store.entity;
 
+import com.secondhand.store.event.ProductActivityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
@@ -12,10 +13,16 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "cart_items",
         uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "product_id"}))
+// Cart view: each line with its product and the product's seller
+@NamedEntityGraph(name = "CartItem.withProduct",
+        attributeNodes = @NamedAttributeNode(value = "product", subgraph = "product"),
+        subgraphs = @NamedSubgraph(name = "product", attributeNodes = @NamedAttributeNode("seller")))
+@EntityListeners(ProductActivityListener.class)
 public class CartItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_items_seq")
+    @SequenceGenerator(name = "cart_items_seq", sequenceName = "cart_items_seq", allocationSize = 50)
     private Long id;
 
     @NotNull(message = "User is required")
@@ -0,0 +1,81 @@
+package com.secondhand.store.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Delivered order items of one category on one day (by order date): units sold and
+ * revenue (price at order times quantity). Maintained by SalesRollupService.
+ */
+@Entity
+@Table(name = "daily_category_sales", indexes = {
+        @Index(name = "idx_daily_category_sales_category", columnList = "category_id, sales_date")
+})
+public class DailyCategorySales {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "item_count", nullable = false)
+    private Long itemCount = 0L;
+
+    @Column(name = "revenue", nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    // Constructors
+    public DailyCategorySales() {}
+
+    // Getters and Setters
+    public Key getId() {
+        return id;
+    }
+
+    public LocalDate getSalesDate() {
+        return id.salesDate;
+    }
+
+    public Long getCategoryId() {
+        return id.categoryId;
+    }
+
+    public Long getItemCount() {
+        return itemCount;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    @Embeddable
+    public static class Key implements Serializable {
+
+        @Column(name = "sales_date")
+        private LocalDate salesDate;
+
+        @Column(name = "category_id")
+        private Long categoryId;
+
+        public Key() {}
+
+        public Key(LocalDate salesDate, Long categoryId) {
+            this.salesDate = salesDate;
+            this.categoryId = categoryId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(salesDate, key.salesDate) && Objects.equals(categoryId, key.categoryId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(salesDate, categoryId);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.secondhand.store.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Delivered orders of one day (by order date): how many, how many items, and the
+ * sum of their total_amount. Maintained by SalesRollupService.
+ */
+@Entity
+@Table(name = "daily_sales")
+public class DailySales {
+
+    @Id
+    @Column(name = "sales_date")
+    private LocalDate salesDate;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount = 0L;
+
+    @Column(name = "item_count", nullable = false)
+    private Long itemCount = 0L;
+
+    @Column(name = "total_amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    // Constructors
+    public DailySales() {}
+
+    // Getters and Setters
+    public LocalDate getSalesDate() {
+        return salesDate;
+    }
+
+    public Long getOrderCount() {
+        return orderCount;
+    }
+
+    public Long getItemCount() {
+        return itemCount;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+}
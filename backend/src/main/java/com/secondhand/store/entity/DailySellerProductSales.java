@@ -0,0 +1,90 @@
+package com.secondhand.store.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Delivered units and revenue of one product of one seller on one day (by order date),
+ * for the seller's best sellers. Maintained by SalesRollupService.
+ */
+@Entity
+@Table(name = "daily_seller_product_sales", indexes = {
+        @Index(name = "idx_daily_seller_product_sales_seller", columnList = "seller_id, sales_date")
+})
+public class DailySellerProductSales {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "item_count", nullable = false)
+    private Long itemCount = 0L;
+
+    @Column(name = "revenue", nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    // Constructors
+    public DailySellerProductSales() {}
+
+    // Getters and Setters
+    public Key getId() {
+        return id;
+    }
+
+    public LocalDate getSalesDate() {
+        return id.salesDate;
+    }
+
+    public Long getSellerId() {
+        return id.sellerId;
+    }
+
+    public Long getProductId() {
+        return id.productId;
+    }
+
+    public Long getItemCount() {
+        return itemCount;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    @Embeddable
+    public static class Key implements Serializable {
+
+        @Column(name = "sales_date")
+        private LocalDate salesDate;
+
+        @Column(name = "seller_id")
+        private Long sellerId;
+
+        @Column(name = "product_id")
+        private Long productId;
+
+        public Key() {}
+
+        public Key(LocalDate salesDate, Long sellerId, Long productId) {
+            this.salesDate = salesDate;
+            this.sellerId = sellerId;
+            this.productId = productId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(salesDate, key.salesDate) && Objects.equals(sellerId, key.sellerId)
+                    && Objects.equals(productId, key.productId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(salesDate, sellerId, productId);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.secondhand.store.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Delivered order items of one seller on one day (by order date): orders they
+ * appear in, units sold and revenue (price at order times quantity).
+ * Maintained by SalesRollupService.
+ */
+@Entity
+@Table(name = "daily_seller_sales", indexes = {
+        @Index(name = "idx_daily_seller_sales_seller", columnList = "seller_id, sales_date")
+})
+public class DailySellerSales {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount = 0L;
+
+    @Column(name = "item_count", nullable = false)
+    private Long itemCount = 0L;
+
+    @Column(name = "revenue", nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    // Constructors
+    public DailySellerSales() {}
+
+    // Getters and Setters
+    public Key getId() {
+        return id;
+    }
+
+    public LocalDate getSalesDate() {
+        return id.salesDate;
+    }
+
+    public Long getSellerId() {
+        return id.sellerId;
+    }
+
+    public Long getOrderCount() {
+        return orderCount;
+    }
+
+    public Long getItemCount() {
+        return itemCount;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    @Embeddable
+    public static class Key implements Serializable {
+
+        @Column(name = "sales_date")
+        private LocalDate salesDate;
+
+        @Column(name = "seller_id")
+        private Long sellerId;
+
+        public Key() {}
+
+        public Key(LocalDate salesDate, Long sellerId) {
+            this.salesDate = salesDate;
+            this.sellerId = sellerId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(salesDate, key.salesDate) && Objects.equals(sellerId, key.sellerId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(salesDate, sellerId);
+        }
+    }
+}
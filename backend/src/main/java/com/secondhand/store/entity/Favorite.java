@@ -0,0 +1,73 @@
+package com.secondhand.store.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+/**
+ * A user's favorite (saved) product. Rows go away with their user or product.
+ */
+@Entity
+@Table(name = "favorites",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "product_id"}),
+        indexes = @Index(name = "idx_favorites_user_created", columnList = "user_id, created_at DESC, id DESC"))
+// "My favorites": each favorite with its product and the product's seller
+@NamedEntityGraph(name = "Favorite.withProduct",
+        attributeNodes = @NamedAttributeNode(value = "product", subgraph = "product"),
+        subgraphs = @NamedSubgraph(name = "product", attributeNodes = @NamedAttributeNode("seller")))
+public class Favorite {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Product product;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public Favorite() {}
+
+    public Favorite(User user, Product product) {
+        this.user = user;
+        this.product = product;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public void setProduct(Product product) {
+        this.product = product;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,83 @@
+package com.secondhand.store.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+/**
+ * Units of a product set aside for a buyer while they check out. The units are
+ * already taken off Product.quantity; the hold gives them back when it is
+ * released or expires, or is deleted without giving them back when the order is placed.
+ */
+@Entity
+@Table(name = "inventory_holds", indexes = {
+        // Expiry job: oldest expired holds first
+        @Index(name = "idx_inventory_holds_expires", columnList = "expires_at"),
+        @Index(name = "idx_inventory_holds_user", columnList = "user_id"),
+        @Index(name = "idx_inventory_holds_product", columnList = "product_id")
+})
+public class InventoryHold {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_holds_seq")
+    @SequenceGenerator(name = "inventory_holds_seq", sequenceName = "inventory_holds_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Product product;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private User user;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public InventoryHold() {}
+
+    public InventoryHold(Product product, User user, Integer quantity, LocalDateTime expiresAt) {
+        this.product = product;
+        this.user = user;
+        this.quantity = quantity;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
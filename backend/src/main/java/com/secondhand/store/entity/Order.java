@@ -12,11 +12,24 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // Sales reports: delivered orders by order date
+        @Index(name = "idx_orders_status_created", columnList = "order_status, created_at"),
+        // Nightly rollup backfill: orders changed long after they were placed
+        @Index(name = "idx_orders_updated", columnList = "updated_at")
+})
+// Order with its items and their product and seller, for order history and order detail
+@NamedEntityGraph(name = "Order.withItems",
+        attributeNodes = @NamedAttributeNode(value = "orderItems", subgraph = "items"),
+        subgraphs = @NamedSubgraph(name = "items", attributeNodes = {
+                @NamedAttributeNode("product"),
+                @NamedAttributeNode("seller")
+        }))
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     @NotNull(message = "Buyer is required")
@@ -375,7 +388,24 @@ public class Order {
 
     // Enums
     public enum OrderStatus {
-        PENDING, CONFIRMED, PROCESSING, SHIPPED, DELIVERED, CANCELLED, REFUNDED
+        PENDING, CONFIRMED, PROCESSING, SHIPPED, DELIVERED, CANCELLED, REFUNDED;
+
+        /**
+         * Whether an order in this status may move to the target. Orders can be
+         * delivered without shipping (handed over in person); once shipped they can
+         * no longer be cancelled, only delivered, and only delivered orders are refunded.
+         */
+        public boolean canTransitionTo(OrderStatus target) {
+            return switch (this) {
+                case PENDING -> target == CONFIRMED || target == PROCESSING || target == SHIPPED
+                        || target == DELIVERED || target == CANCELLED;
+                case CONFIRMED -> target == PROCESSING || target == SHIPPED || target == DELIVERED || target == CANCELLED;
+                case PROCESSING -> target == SHIPPED || target == DELIVERED || target == CANCELLED;
+                case SHIPPED -> target == DELIVERED;
+                case DELIVERED -> target == REFUNDED;
+                case CANCELLED, REFUNDED -> false;
+            };
+        }
     }
 
     public enum PaymentMethod {
@@ -1,5 +1,6 @@
 package com.secondhand.store.entity;
 
+import com.secondhand.store.event.ProductActivityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
@@ -9,11 +10,16 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "order_items")
+@Table(name = "order_items", indexes = {
+        // Seller dashboard: a seller's sold items, newest first
+        @Index(name = "idx_order_items_seller_created", columnList = "seller_id, created_at DESC, id DESC")
+})
+@EntityListeners(ProductActivityListener.class)
 public class OrderItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
     private Long id;
 
     @NotNull(message = "Order is required")
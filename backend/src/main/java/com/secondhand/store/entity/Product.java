@@ -11,11 +11,32 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        // Keyset pagination seeks on (sort key, id) among available products
+        @Index(name = "idx_products_available_created", columnList = "is_available, created_at, id"),
+        @Index(name = "idx_products_available_price", columnList = "is_available, price, id"),
+        @Index(name = "idx_products_available_name", columnList = "is_available, name, id"),
+        // Search filters that can narrow the scan on their own
+        @Index(name = "idx_products_category_available", columnList = "category_id, is_available, created_at"),
+        @Index(name = "idx_products_condition_available", columnList = "condition, is_available")
+})
+// Fetch plans for the read paths; see the matching ProductRepository methods
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = "Product.summary", attributeNodes = {
+                @NamedAttributeNode("category"),
+                @NamedAttributeNode("seller")
+        }),
+        @NamedEntityGraph(name = "Product.detail", attributeNodes = {
+                @NamedAttributeNode("category"),
+                @NamedAttributeNode("seller"),
+                @NamedAttributeNode("imageUrls")
+        })
+})
 public class Product {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Product name is required")
@@ -49,9 +70,15 @@ public class Product {
     @JoinColumn(name = "seller_id", nullable = false)
     private User seller;
 
+    // Units left to sell. Only changed by conditional UPDATEs (see InventoryService),
+    // which also bump version, so a stale copy of the row can't write an old value back
     @Column(nullable = false)
     private Integer quantity = 1;
 
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @Column(name = "is_available", nullable = false)
     private Boolean isAvailable = true;
 
@@ -88,15 +115,14 @@ public class Product {
     // Product images
     @ElementCollection
     @CollectionTable(name = "product_images", joinColumns = @JoinColumn(name = "product_id"))
+    @OrderColumn(name = "image_order") // Keeps the order, so the first image is the cover
     @Column(name = "image_url")
     private List<String> imageUrls = new ArrayList<>();
 
-    // Views and favorites
-    @Column(name = "view_count", nullable = false)
-    private Long viewCount = 0L;
-
-    @Column(name = "favorite_count", nullable = false)
-    private Long favoriteCount = 0L;
+    // Views, favorites and other counters live in product_stats and are loaded on first use.
+    // Every product has a row there (created on persist), so the lazy proxy is always backed
+    @OneToOne(mappedBy = "product", fetch = FetchType.LAZY, optional = false, cascade = CascadeType.ALL)
+    private ProductStats stats;
 
     // SEO and search
     @Column(name = "keywords")
@@ -206,6 +232,10 @@ public class Product {
         this.quantity = quantity;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public Boolean getIsAvailable() {
         return isAvailable;
     }
@@ -294,20 +324,20 @@ public class Product {
         this.imageUrls = imageUrls;
     }
 
-    public Long getViewCount() {
-        return viewCount;
+    public ProductStats getStats() {
+        return stats;
     }
 
-    public void setViewCount(Long viewCount) {
-        this.viewCount = viewCount;
+    public void setStats(ProductStats stats) {
+        this.stats = stats;
     }
 
-    public Long getFavoriteCount() {
-        return favoriteCount;
+    public Long getViewCount() {
+        return stats != null ? stats.getViewCount() : 0L;
     }
 
-    public void setFavoriteCount(Long favoriteCount) {
-        this.favoriteCount = favoriteCount;
+    public Long getFavoriteCount() {
+        return stats != null ? stats.getFavoriteCount() : 0L;
     }
 
     public String getKeywords() {
@@ -358,11 +388,14 @@ public class Product {
         this.orderItems = orderItems;
     }
 
-    // Helper methods
-    public void incrementViewCount() {
-        this.viewCount++;
+    @PrePersist
+    private void createStats() {
+        if (stats == null) {
+            stats = new ProductStats(this);
+        }
     }
 
+    // Helper methods
     public void markAsSold() {
         this.isSold = true;
         this.isAvailable = false;
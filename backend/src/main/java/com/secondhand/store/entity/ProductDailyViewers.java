@@ -0,0 +1,71 @@
+package com.secondhand.store.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Unique viewers of a product on one day, as a serialized HyperLogLog sketch
+ * (a few bytes per viewer while small, at most about 12 KB)
+ */
+@Entity
+@Table(name = "product_daily_viewers")
+public class ProductDailyViewers {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "sketch", nullable = false)
+    private byte[] sketch;
+
+    // Constructors
+    public ProductDailyViewers() {}
+
+    // Getters and Setters
+    public Key getId() {
+        return id;
+    }
+
+    public Long getProductId() {
+        return id.productId;
+    }
+
+    public LocalDate getViewDate() {
+        return id.viewDate;
+    }
+
+    public byte[] getSketch() {
+        return sketch;
+    }
+
+    @Embeddable
+    public static class Key implements Serializable {
+
+        @Column(name = "product_id")
+        private Long productId;
+
+        @Column(name = "view_date")
+        private LocalDate viewDate;
+
+        public Key() {}
+
+        public Key(Long productId, LocalDate viewDate) {
+            this.productId = productId;
+            this.viewDate = viewDate;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(productId, key.productId) && Objects.equals(viewDate, key.viewDate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(productId, viewDate);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.secondhand.store.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Counters of a product, kept out of the wide products row so that a view or a
+ * favorite only rewrites this narrow tuple. Shares the product's id.
+ */
+@Entity
+@Table(name = "product_stats", indexes = {
+        @Index(name = "idx_product_stats_view_count", columnList = "view_count DESC, product_id")
+})
+public class ProductStats {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id")
+    private Product product;
+
+    @Column(name = "view_count", nullable = false)
+    private Long viewCount = 0L;
+
+    @Column(name = "favorite_count", nullable = false)
+    private Long favoriteCount = 0L;
+
+    @Column(name = "cart_add_count", nullable = false)
+    private Long cartAddCount = 0L;
+
+    // Constructors
+    public ProductStats() {}
+
+    public ProductStats(Product product) {
+        this.product = product;
+    }
+
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public void setProduct(Product product) {
+        this.product = product;
+    }
+
+    public Long getViewCount() {
+        return viewCount;
+    }
+
+    public void setViewCount(Long viewCount) {
+        this.viewCount = viewCount;
+    }
+
+    public Long getFavoriteCount() {
+        return favoriteCount;
+    }
+
+    public void setFavoriteCount(Long favoriteCount) {
+        this.favoriteCount = favoriteCount;
+    }
+
+    public Long getCartAddCount() {
+        return cartAddCount;
+    }
+
+    public void setCartAddCount(Long cartAddCount) {
+        this.cartAddCount = cartAddCount;
+    }
+}
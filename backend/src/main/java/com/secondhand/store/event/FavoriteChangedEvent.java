@@ -0,0 +1,8 @@
+package com.secondhand.store.event;
+
+/**
+ * Published by FavoriteService when a user favorites (added) or unfavorites a product.
+ * Only published when a row was actually inserted or deleted.
+ */
+public record FavoriteChangedEvent(Long userId, Long productId, boolean added) {
+}
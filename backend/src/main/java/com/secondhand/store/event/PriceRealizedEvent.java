@@ -0,0 +1,25 @@
+package com.secondhand.store.event;
+
+import com.secondhand.store.entity.OrderItem;
+import com.secondhand.store.entity.Product;
+
+import java.math.BigDecimal;
+
+/**
+ * A product was bought: the price actually paid per unit, with the category and
+ * condition it sold under. Published by ProductActivityListener for each order item.
+ */
+public record PriceRealizedEvent(Long orderItemId, Long productId, Long categoryId, Product.ProductCondition condition,
+                                 BigDecimal price, int quantity) {
+
+    public static PriceRealizedEvent of(OrderItem item) {
+        Product product = item.getProduct();
+        return new PriceRealizedEvent(
+                item.getId(),
+                product.getId(),
+                product.getCategory() != null ? product.getCategory().getId() : null,
+                item.getProductConditionAtOrder() != null ? item.getProductConditionAtOrder() : product.getCondition(),
+                item.getPriceAtOrder(),
+                item.getQuantity() != null ? item.getQuantity() : 1);
+    }
+}
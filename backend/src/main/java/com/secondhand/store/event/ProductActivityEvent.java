@@ -0,0 +1,19 @@
+package com.secondhand.store.event;
+
+import java.time.Instant;
+
+/**
+ * A shopper interacted with a product: viewed it, put it in a cart or bought it.
+ * Views are published by ProductService, cart adds and purchases by
+ * ProductActivityListener when the CartItem / OrderItem row is inserted.
+ */
+public record ProductActivityEvent(Type type, Long productId, int quantity, Instant occurredAt) {
+
+    public static ProductActivityEvent viewed(Long productId) {
+        return new ProductActivityEvent(Type.VIEW, productId, 1, Instant.now());
+    }
+
+    public enum Type {
+        VIEW, CART_ADD, PURCHASE
+    }
+}
@@ -0,0 +1,38 @@
+package com.secondhand.store.event;
+
+import com.secondhand.store.entity.CartItem;
+import com.secondhand.store.entity.OrderItem;
+import jakarta.persistence.PostPersist;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Instant;
+
+/**
+ * JPA entity listener on CartItem and OrderItem that turns inserts into
+ * ProductActivityEvents (and, for order items, PriceRealizedEvents),
+ * whichever code path creates the rows.
+ * Instantiated by Hibernate through Spring, so it can take beans.
+ */
+public class ProductActivityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ProductActivityListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    public void onPersist(Object entity) {
+        if (entity instanceof CartItem cartItem && cartItem.getProduct() != null) {
+            publish(ProductActivityEvent.Type.CART_ADD, cartItem.getProduct().getId(), cartItem.getQuantity());
+        } else if (entity instanceof OrderItem orderItem && orderItem.getProduct() != null) {
+            publish(ProductActivityEvent.Type.PURCHASE, orderItem.getProduct().getId(), orderItem.getQuantity());
+            eventPublisher.publishEvent(PriceRealizedEvent.of(orderItem));
+        }
+    }
+
+    private void publish(ProductActivityEvent.Type type, Long productId, Integer quantity) {
+        eventPublisher.publishEvent(new ProductActivityEvent(type, productId,
+                quantity != null ? quantity : 1, Instant.now()));
+    }
+}
@@ -0,0 +1,41 @@
+package com.secondhand.store.event;
+
+import com.secondhand.store.entity.Product;
+
+/**
+ * Published by ProductService whenever a product is written.
+ * product is the state after the change (null for deletions), previous the
+ * state before it (null for creations), so listeners can apply deltas.
+ */
+public record ProductChangedEvent(Type type, Long productId, ProductSnapshot product, ProductSnapshot previous) {
+
+    public static ProductChangedEvent created(Product product) {
+        return new ProductChangedEvent(Type.CREATED, product.getId(), ProductSnapshot.of(product), null);
+    }
+
+    public static ProductChangedEvent of(Type type, Product product, ProductSnapshot previous) {
+        return new ProductChangedEvent(type, product.getId(), ProductSnapshot.of(product), previous);
+    }
+
+    /**
+     * For products marked sold by a conditional UPDATE, where no entity holds the new state
+     */
+    public static ProductChangedEvent sold(ProductSnapshot previous) {
+        return new ProductChangedEvent(Type.SOLD, previous.id(), previous.sold(), previous);
+    }
+
+    /**
+     * For sold listings put back on sale by a conditional UPDATE, e.g. when their order is cancelled
+     */
+    public static ProductChangedEvent reopened(ProductSnapshot product) {
+        return new ProductChangedEvent(Type.UPDATED, product.id(), product, product.sold());
+    }
+
+    public static ProductChangedEvent deleted(ProductSnapshot previous) {
+        return new ProductChangedEvent(Type.DELETED, previous.id(), null, previous);
+    }
+
+    public enum Type {
+        CREATED, UPDATED, SOLD, DELETED
+    }
+}
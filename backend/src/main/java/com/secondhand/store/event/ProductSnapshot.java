@@ -0,0 +1,49 @@
+package com.secondhand.store.event;
+
+import com.secondhand.store.entity.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Immutable copy of the product columns the in-memory read models care about.
+ * Safe to hand to listeners that run after the transaction has committed.
+ */
+public record ProductSnapshot(
+        Long id,
+        String name,
+        String description,
+        String brand,
+        String keywords,
+        Long categoryId,
+        Product.ProductCondition condition,
+        BigDecimal price,
+        String locationCity,
+        LocalDateTime createdAt,
+        long viewCount,
+        boolean available) {
+
+    public static ProductSnapshot of(Product product) {
+        return new ProductSnapshot(
+                product.getId(),
+                product.getName(),
+                product.getDescription(),
+                product.getBrand(),
+                product.getKeywords(),
+                product.getCategory() != null ? product.getCategory().getId() : null,
+                product.getCondition(),
+                product.getPrice(),
+                product.getLocationCity(),
+                product.getCreatedAt(),
+                product.getViewCount() != null ? product.getViewCount() : 0L,
+                Boolean.TRUE.equals(product.getIsAvailable()));
+    }
+
+    /**
+     * The same product after it sold out: no longer available
+     */
+    public ProductSnapshot sold() {
+        return new ProductSnapshot(id, name, description, brand, keywords, categoryId, condition, price,
+                locationCity, createdAt, viewCount, false);
+    }
+}
@@ -3,12 +3,15 @@ package com.secondhand.store.repository;
 import com.secondhand.store.entity.CartItem;
 import com.secondhand.store.entity.User;
 import com.secondhand.store.entity.Product;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,9 +20,20 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
 
     List<CartItem> findByUser(User user);
 
+    /**
+     * Cart view: lines with their product and its seller in one statement
+     */
+    @EntityGraph("CartItem.withProduct")
+    List<CartItem> findWithProductByUserIdOrderByCreatedAtDesc(Long userId);
+
     Optional<CartItem> findByUserAndProduct(User user, Product product);
 
-    void deleteByUser(User user); // Clear cart
+    /**
+     * Clear cart in one statement (the derived delete loaded and removed row by row)
+     */
+    @Modifying
+    @Query("DELETE FROM CartItem c WHERE c.user = :user")
+    int deleteByUser(@Param("user") User user);
 
     void deleteByUserAndProduct(User user, Product product);
 
@@ -28,4 +42,11 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
 
     @Query("SELECT COUNT(c) FROM CartItem c WHERE c.user = :user")
     int countItemsInCart(@Param("user") User user);
+
+    /**
+     * Cart adds since the given time
+     */
+    @Query("SELECT c.product.id AS productId, c.quantity AS quantity, c.createdAt AS createdAt " +
+            "FROM CartItem c WHERE c.createdAt >= :since")
+    List<ProductActivityRow> findCartAddsSince(@Param("since") LocalDateTime since);
 }
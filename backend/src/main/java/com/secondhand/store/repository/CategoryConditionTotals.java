@@ -0,0 +1,19 @@
+package com.secondhand.store.repository;
+
+import com.secondhand.store.entity.Product;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection of the available products of one category and condition: how many, and their summed price
+ */
+public interface CategoryConditionTotals {
+
+    Long getCategoryId();
+
+    Product.ProductCondition getCondition();
+
+    Long getProductCount();
+
+    BigDecimal getPriceSum();
+}
@@ -0,0 +1,62 @@
+package com.secondhand.store.repository;
+
+import com.secondhand.store.entity.DailyCategorySales;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DailyCategorySalesRepository extends JpaRepository<DailyCategorySales, DailyCategorySales.Key> {
+
+    /**
+     * Units and revenue per category over whole days, highest revenue first
+     */
+    @Query("SELECT d.id.categoryId AS keyId, SUM(d.itemCount) AS itemCount, SUM(d.revenue) AS revenue " +
+            "FROM DailyCategorySales d WHERE d.id.salesDate BETWEEN :from AND :to " +
+            "GROUP BY d.id.categoryId ORDER BY SUM(d.revenue) DESC")
+    List<SalesTotalsRow> sumByCategory(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT d FROM DailyCategorySales d WHERE d.id.categoryId = :categoryId " +
+            "AND d.id.salesDate BETWEEN :from AND :to ORDER BY d.id.salesDate")
+    List<DailyCategorySales> findByCategoryAndDays(@Param("categoryId") Long categoryId,
+                                                   @Param("from") LocalDate from,
+                                                   @Param("to") LocalDate to);
+
+    /**
+     * Adds (sign 1) or takes out (sign -1) the items of the given orders on the rows
+     * of their categories on their order dates
+     */
+    @Modifying
+    @Query(value = "INSERT INTO daily_category_sales (sales_date, category_id, item_count, revenue) " +
+            "SELECT CAST(o.created_at AS DATE), p.category_id, SUM(oi.quantity) * :sign, " +
+            "SUM(oi.price_at_order * oi.quantity) * :sign " +
+            "FROM orders o JOIN order_items oi ON oi.order_id = o.id JOIN products p ON p.id = oi.product_id " +
+            "WHERE o.id IN (:orderIds) " +
+            "GROUP BY CAST(o.created_at AS DATE), p.category_id " +
+            "ON CONFLICT (sales_date, category_id) DO UPDATE SET " +
+            "item_count = daily_category_sales.item_count + EXCLUDED.item_count, " +
+            "revenue = daily_category_sales.revenue + EXCLUDED.revenue", nativeQuery = true)
+    int addOrders(@Param("orderIds") Collection<Long> orderIds, @Param("sign") int sign);
+
+    @Modifying
+    @Query("DELETE FROM DailyCategorySales d WHERE d.id.salesDate BETWEEN :from AND :to")
+    int deleteDays(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Recomputes the rows of the delivered orders created in [from, before)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO daily_category_sales (sales_date, category_id, item_count, revenue) " +
+            "SELECT CAST(o.created_at AS DATE), p.category_id, SUM(oi.quantity), SUM(oi.price_at_order * oi.quantity) " +
+            "FROM orders o JOIN order_items oi ON oi.order_id = o.id JOIN products p ON p.id = oi.product_id " +
+            "WHERE o.order_status = 'DELIVERED' AND o.created_at >= :from AND o.created_at < :before " +
+            "GROUP BY CAST(o.created_at AS DATE), p.category_id", nativeQuery = true)
+    int insertDays(@Param("from") LocalDateTime from, @Param("before") LocalDateTime before);
+}
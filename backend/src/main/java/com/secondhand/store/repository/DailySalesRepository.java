@@ -0,0 +1,55 @@
+package com.secondhand.store.repository;
+
+import com.secondhand.store.entity.DailySales;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DailySalesRepository extends JpaRepository<DailySales, LocalDate> {
+
+    List<DailySales> findBySalesDateBetweenOrderBySalesDate(LocalDate from, LocalDate to);
+
+    @Query("SELECT COALESCE(SUM(d.totalAmount), 0) FROM DailySales d WHERE d.salesDate BETWEEN :from AND :to")
+    BigDecimal sumTotalAmount(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Adds (sign 1) or takes out (sign -1) the given orders on the rows of their order dates
+     */
+    @Modifying
+    @Query(value = "INSERT INTO daily_sales (sales_date, order_count, item_count, total_amount) " +
+            "SELECT CAST(o.created_at AS DATE), COUNT(*) * :sign, COALESCE(SUM(items.quantity), 0) * :sign, " +
+            "SUM(o.total_amount) * :sign " +
+            "FROM orders o LEFT JOIN LATERAL (SELECT SUM(oi.quantity) AS quantity FROM order_items oi " +
+            "WHERE oi.order_id = o.id) items ON TRUE " +
+            "WHERE o.id IN (:orderIds) GROUP BY CAST(o.created_at AS DATE) " +
+            "ON CONFLICT (sales_date) DO UPDATE SET " +
+            "order_count = daily_sales.order_count + EXCLUDED.order_count, " +
+            "item_count = daily_sales.item_count + EXCLUDED.item_count, " +
+            "total_amount = daily_sales.total_amount + EXCLUDED.total_amount", nativeQuery = true)
+    int addOrders(@Param("orderIds") Collection<Long> orderIds, @Param("sign") int sign);
+
+    @Modifying
+    @Query("DELETE FROM DailySales d WHERE d.salesDate BETWEEN :from AND :to")
+    int deleteDays(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Recomputes the rows of the delivered orders created in [from, before)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO daily_sales (sales_date, order_count, item_count, total_amount) " +
+            "SELECT CAST(o.created_at AS DATE), COUNT(*), COALESCE(SUM(items.quantity), 0), SUM(o.total_amount) " +
+            "FROM orders o LEFT JOIN LATERAL (SELECT SUM(oi.quantity) AS quantity FROM order_items oi " +
+            "WHERE oi.order_id = o.id) items ON TRUE " +
+            "WHERE o.order_status = 'DELIVERED' AND o.created_at >= :from AND o.created_at < :before " +
+            "GROUP BY CAST(o.created_at AS DATE)", nativeQuery = true)
+    int insertDays(@Param("from") LocalDateTime from, @Param("before") LocalDateTime before);
+}
@@ -0,0 +1,65 @@
+package com.secondhand.store.repository;
+
+import com.secondhand.store.entity.DailySellerProductSales;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DailySellerProductSalesRepository
+        extends JpaRepository<DailySellerProductSales, DailySellerProductSales.Key> {
+
+    /**
+     * A seller's best selling products over whole days, highest revenue first
+     */
+    @Query("SELECT d.id.productId AS productId, p.name AS productName, " +
+            "SUM(d.itemCount) AS itemCount, SUM(d.revenue) AS revenue " +
+            "FROM DailySellerProductSales d JOIN Product p ON p.id = d.id.productId " +
+            "WHERE d.id.sellerId = :sellerId AND d.id.salesDate BETWEEN :from AND :to " +
+            "GROUP BY d.id.productId, p.name ORDER BY SUM(d.revenue) DESC, d.id.productId")
+    List<ProductSalesRow> findTopProducts(@Param("sellerId") Long sellerId,
+                                          @Param("from") LocalDate from,
+                                          @Param("to") LocalDate to,
+                                          Limit limit);
+
+    /**
+     * Adds (sign 1) or takes out (sign -1) the items of the given orders on the rows
+     * of their seller and product on their order dates
+     */
+    @Modifying
+    @Query(value = "INSERT INTO daily_seller_product_sales (sales_date, seller_id, product_id, item_count, revenue) " +
+            "SELECT CAST(o.created_at AS DATE), oi.seller_id, oi.product_id, SUM(oi.quantity) * :sign, " +
+            "SUM(oi.price_at_order * oi.quantity) * :sign " +
+            "FROM orders o JOIN order_items oi ON oi.order_id = o.id " +
+            "WHERE o.id IN (:orderIds) AND oi.seller_id IS NOT NULL " +
+            "GROUP BY CAST(o.created_at AS DATE), oi.seller_id, oi.product_id " +
+            "ON CONFLICT (sales_date, seller_id, product_id) DO UPDATE SET " +
+            "item_count = daily_seller_product_sales.item_count + EXCLUDED.item_count, " +
+            "revenue = daily_seller_product_sales.revenue + EXCLUDED.revenue", nativeQuery = true)
+    int addOrders(@Param("orderIds") Collection<Long> orderIds, @Param("sign") int sign);
+
+    @Modifying
+    @Query("DELETE FROM DailySellerProductSales d WHERE d.id.salesDate BETWEEN :from AND :to")
+    int deleteDays(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Recomputes the rows of the delivered orders created in [from, before)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO daily_seller_product_sales (sales_date, seller_id, product_id, item_count, revenue) " +
+            "SELECT CAST(o.created_at AS DATE), oi.seller_id, oi.product_id, SUM(oi.quantity), " +
+            "SUM(oi.price_at_order * oi.quantity) " +
+            "FROM orders o JOIN order_items oi ON oi.order_id = o.id " +
+            "WHERE o.order_status = 'DELIVERED' AND o.created_at >= :from AND o.created_at < :before " +
+            "AND oi.seller_id IS NOT NULL " +
+            "GROUP BY CAST(o.created_at AS DATE), oi.seller_id, oi.product_id", nativeQuery = true)
+    int insertDays(@Param("from") LocalDateTime from, @Param("before") LocalDateTime before);
+}
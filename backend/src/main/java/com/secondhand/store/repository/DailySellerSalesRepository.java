@@ -0,0 +1,74 @@
+package com.secondhand.store.repository;
+
+import com.secondhand.store.entity.DailySellerSales;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DailySellerSalesRepository extends JpaRepository<DailySellerSales, DailySellerSales.Key> {
+
+    /**
+     * Units and revenue per seller over whole days, highest revenue first
+     */
+    @Query("SELECT d.id.sellerId AS keyId, SUM(d.itemCount) AS itemCount, SUM(d.revenue) AS revenue " +
+            "FROM DailySellerSales d WHERE d.id.salesDate BETWEEN :from AND :to " +
+            "GROUP BY d.id.sellerId ORDER BY SUM(d.revenue) DESC")
+    List<SalesTotalsRow> sumBySeller(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Orders, units and revenue of one seller over whole days
+     */
+    @Query("SELECT COALESCE(SUM(d.orderCount), 0) AS orderCount, COALESCE(SUM(d.itemCount), 0) AS itemCount, " +
+            "COALESCE(SUM(d.revenue), 0) AS revenue " +
+            "FROM DailySellerSales d WHERE d.id.sellerId = :sellerId AND d.id.salesDate BETWEEN :from AND :to")
+    SellerSalesTotals sumForSeller(@Param("sellerId") Long sellerId,
+                                   @Param("from") LocalDate from,
+                                   @Param("to") LocalDate to);
+
+    @Query("SELECT d FROM DailySellerSales d WHERE d.id.sellerId = :sellerId " +
+            "AND d.id.salesDate BETWEEN :from AND :to ORDER BY d.id.salesDate")
+    List<DailySellerSales> findBySellerAndDays(@Param("sellerId") Long sellerId,
+                                               @Param("from") LocalDate from,
+                                               @Param("to") LocalDate to);
+
+    /**
+     * Adds (sign 1) or takes out (sign -1) the items of the given orders on the rows
+     * of their sellers on their order dates
+     */
+    @Modifying
+    @Query(value = "INSERT INTO daily_seller_sales (sales_date, seller_id, order_count, item_count, revenue) " +
+            "SELECT CAST(o.created_at AS DATE), oi.seller_id, COUNT(DISTINCT o.id) * :sign, SUM(oi.quantity) * :sign, " +
+            "SUM(oi.price_at_order * oi.quantity) * :sign " +
+            "FROM orders o JOIN order_items oi ON oi.order_id = o.id " +
+            "WHERE o.id IN (:orderIds) AND oi.seller_id IS NOT NULL " +
+            "GROUP BY CAST(o.created_at AS DATE), oi.seller_id " +
+            "ON CONFLICT (sales_date, seller_id) DO UPDATE SET " +
+            "order_count = daily_seller_sales.order_count + EXCLUDED.order_count, " +
+            "item_count = daily_seller_sales.item_count + EXCLUDED.item_count, " +
+            "revenue = daily_seller_sales.revenue + EXCLUDED.revenue", nativeQuery = true)
+    int addOrders(@Param("orderIds") Collection<Long> orderIds, @Param("sign") int sign);
+
+    @Modifying
+    @Query("DELETE FROM DailySellerSales d WHERE d.id.salesDate BETWEEN :from AND :to")
+    int deleteDays(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Recomputes the rows of the delivered orders created in [from, before)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO daily_seller_sales (sales_date, seller_id, order_count, item_count, revenue) " +
+            "SELECT CAST(o.created_at AS DATE), oi.seller_id, COUNT(DISTINCT o.id), SUM(oi.quantity), " +
+            "SUM(oi.price_at_order * oi.quantity) " +
+            "FROM orders o JOIN order_items oi ON oi.order_id = o.id " +
+            "WHERE o.order_status = 'DELIVERED' AND o.created_at >= :from AND o.created_at < :before AND oi.seller_id IS NOT NULL " +
+            "GROUP BY CAST(o.created_at AS DATE), oi.seller_id", nativeQuery = true)
+    int insertDays(@Param("from") LocalDateTime from, @Param("before") LocalDateTime before);
+}
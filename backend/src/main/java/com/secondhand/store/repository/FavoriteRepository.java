@@ -0,0 +1,45 @@
+package com.secondhand.store.repository;
+
+import com.secondhand.store.entity.Favorite;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface FavoriteRepository extends JpaRepository<Favorite, Long> {
+
+    /**
+     * Returns 1 when the favorite was added, 0 when it already existed
+     */
+    @Modifying
+    @Query(value = "INSERT INTO favorites (user_id, product_id, created_at) VALUES (:userId, :productId, now()) " +
+            "ON CONFLICT (user_id, product_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("productId") Long productId);
+
+    /**
+     * Returns 1 when the favorite was removed, 0 when there was none
+     */
+    @Modifying
+    @Query("DELETE FROM Favorite f WHERE f.user.id = :userId AND f.product.id = :productId")
+    int deleteByUserIdAndProductId(@Param("userId") Long userId, @Param("productId") Long productId);
+
+    /**
+     * Keyset-paginated favorites of a user with their products
+     */
+    @EntityGraph("Favorite.withProduct")
+    Window<Favorite> findByUserId(Long userId, ScrollPosition position, Sort sort, Limit limit);
+
+    @Query("SELECT f.product.id FROM Favorite f WHERE f.user.id = :userId")
+    List<Long> findProductIdsByUserId(@Param("userId") Long userId);
+
+    boolean existsByUserIdAndProductId(Long userId, Long productId);
+}
@@ -0,0 +1,24 @@
+package com.secondhand.store.repository;
+
+import com.secondhand.store.entity.InventoryHold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface InventoryHoldRepository extends JpaRepository<InventoryHold, Long> {
+
+    List<InventoryHold> findByUserIdAndExpiresAtAfterOrderByExpiresAt(Long userId, LocalDateTime now);
+
+    /**
+     * Drops the holds on a product without giving their units back (it has been sold)
+     */
+    @Modifying
+    @Query("DELETE FROM InventoryHold h WHERE h.product.id = :productId")
+    int deleteByProductId(@Param("productId") Long productId);
+}
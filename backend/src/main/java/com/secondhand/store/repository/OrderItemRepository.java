@@ -0,0 +1,57 @@
+package com.secondhand.store.repository;
+
+import com.secondhand.store.entity.OrderItem;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+
+    /**
+     * Purchases since the given time, leaving out cancelled and refunded orders
+     */
+    @Query("SELECT oi.product.id AS productId, oi.quantity AS quantity, oi.createdAt AS createdAt " +
+            "FROM OrderItem oi WHERE oi.createdAt >= :since " +
+            "AND oi.order.orderStatus NOT IN ('CANCELLED', 'REFUNDED')")
+    List<ProductActivityRow> findPurchasesSince(@Param("since") LocalDateTime since);
+
+    /**
+     * Prices paid since the given time, leaving out cancelled and refunded orders
+     */
+    @Query("SELECT p.category.id AS categoryId, oi.productConditionAtOrder AS condition, " +
+            "oi.priceAtOrder AS price, oi.quantity AS quantity " +
+            "FROM OrderItem oi JOIN oi.product p WHERE oi.createdAt >= :since " +
+            "AND oi.order.orderStatus NOT IN ('CANCELLED', 'REFUNDED')")
+    List<RealizedPriceRow> findRealizedPricesSince(@Param("since") LocalDateTime since);
+
+    /**
+     * Those of the given order item ids that exist
+     */
+    @Query("SELECT oi.id FROM OrderItem oi WHERE oi.id IN (:ids)")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * A seller's sold items in [from, before), newest first, as flat rows.
+     * Pages through idx_order_items_seller_created instead of loading Order graphs.
+     */
+    @Query(value = "SELECT oi.id AS id, o.id AS orderId, o.orderNumber AS orderNumber, o.orderStatus AS orderStatus, " +
+            "oi.product.id AS productId, oi.productNameAtOrder AS productName, oi.quantity AS quantity, " +
+            "oi.priceAtOrder AS priceAtOrder, oi.createdAt AS createdAt " +
+            "FROM OrderItem oi JOIN oi.order o " +
+            "WHERE oi.seller.id = :sellerId AND oi.createdAt >= :from AND oi.createdAt < :before " +
+            "ORDER BY oi.createdAt DESC, oi.id DESC",
+            countQuery = "SELECT COUNT(oi) FROM OrderItem oi " +
+                    "WHERE oi.seller.id = :sellerId AND oi.createdAt >= :from AND oi.createdAt < :before")
+    Page<SellerOrderItemView> findSellerItems(@Param("sellerId") Long sellerId,
+                                              @Param("from") LocalDateTime from,
+                                              @Param("before") LocalDateTime before,
+                                              Pageable pageable);
+}
@@ -2,15 +2,20 @@ package com.secondhand.store.repository;
 
 import com.secondhand.store.entity.Order;
 import com.secondhand.store.entity.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,6 +28,24 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
 
     Page<Order> findByBuyer(User buyer, Pageable pageable);
 
+    /**
+     * Buyer order history with items, products and sellers loaded in one statement
+     */
+    @EntityGraph("Order.withItems")
+    List<Order> findWithItemsByBuyerIdOrderByCreatedAtDesc(Long buyerId);
+
+    /**
+     * Paged buyer order history. Items can't be join-fetched under a page limit,
+     * so they come in one batch per page (default_batch_fetch_size) instead.
+     */
+    Page<Order> findByBuyerIdOrderByCreatedAtDesc(Long buyerId, Pageable pageable);
+
+    /**
+     * Order detail with items, products and sellers
+     */
+    @EntityGraph("Order.withItems")
+    Optional<Order> findWithItemsById(Long id);
+
     List<Order> findByOrderStatus(Order.OrderStatus status);
 
     List<Order> findByPaymentStatus(Order.PaymentStatus status);
@@ -41,6 +64,39 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
             @Param("startDate") LocalDateTime startDate,
             @Param("endDate") LocalDateTime endDate);
 
+    /**
+     * Like getTotalSalesBetweenDates, but for the half-open range [from, before)
+     */
+    @Query("SELECT SUM(o.totalAmount) FROM Order o WHERE " +
+            "o.orderStatus = 'DELIVERED' AND o.createdAt >= :from AND o.createdAt < :before")
+    BigDecimal getTotalSalesFrom(@Param("from") LocalDateTime from, @Param("before") LocalDateTime before);
+
+    @Query("SELECT MIN(o.createdAt) FROM Order o WHERE o.orderStatus = 'DELIVERED'")
+    Optional<LocalDateTime> findFirstDeliveredOrderDate();
+
+    /**
+     * Order dates of the orders placed before `before` but changed since `since`
+     */
+    @Query("SELECT DISTINCT CAST(o.createdAt AS LocalDate) FROM Order o " +
+            "WHERE o.updatedAt >= :since AND o.createdAt < :before")
+    List<LocalDate> findOrderDatesChangedSince(@Param("since") LocalDateTime since,
+                                               @Param("before") LocalDateTime before);
+
+    /**
+     * Loads the order and locks its row, so concurrent status changes are applied one at a time
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Fulfillment state of many orders by number, for bulk status changes
+     */
+    @Query("SELECT o.id AS id, o.orderNumber AS orderNumber, o.orderStatus AS orderStatus, " +
+            "o.trackingNumber AS trackingNumber, o.carrier AS carrier " +
+            "FROM Order o WHERE o.orderNumber IN (:orderNumbers)")
+    List<OrderStatusView> findStatusByOrderNumbers(@Param("orderNumbers") Collection<String> orderNumbers);
+
     // Find orders containing products from a specific seller
     @Query("SELECT DISTINCT o FROM Order o JOIN o.orderItems oi WHERE oi.seller = :seller")
     List<Order> findOrdersBySeller(@Param("seller") User seller);
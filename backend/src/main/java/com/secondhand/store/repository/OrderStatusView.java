@@ -0,0 +1,19 @@
+package com.secondhand.store.repository;
+
+import com.secondhand.store.entity.Order;
+
+/**
+ * Projection of an order's fulfillment state for bulk updates, without buyer or items
+ */
+public interface OrderStatusView {
+
+    Long getId();
+
+    String getOrderNumber();
+
+    Order.OrderStatus getOrderStatus();
+
+    String getTrackingNumber();
+
+    String getCarrier();
+}
@@ -0,0 +1,15 @@
+package com.secondhand.store.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of a cart or order line as product activity: which product, how many, when
+ */
+public interface ProductActivityRow {
+
+    Long getProductId();
+
+    Integer getQuantity();
+
+    LocalDateTime getCreatedAt();
+}
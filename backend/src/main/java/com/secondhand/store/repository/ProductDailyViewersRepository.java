@@ -0,0 +1,20 @@
+package com.secondhand.store.repository;
+
+import com.secondhand.store.entity.ProductDailyViewers;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ProductDailyViewersRepository extends JpaRepository<ProductDailyViewers, ProductDailyViewers.Key> {
+
+    @Query("SELECT v FROM ProductDailyViewers v WHERE v.id.productId = :productId " +
+            "AND v.id.viewDate BETWEEN :from AND :to ORDER BY v.id.viewDate")
+    List<ProductDailyViewers> findByProductAndDays(@Param("productId") Long productId,
+                                                   @Param("from") LocalDate from,
+                                                   @Param("to") LocalDate to);
+}
@@ -0,0 +1,26 @@
+package com.secondhand.store.repository;
+
+import com.secondhand.store.dto.ProductListing;
+import com.secondhand.store.entity.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Listing projections for any product Specification (fragment of ProductRepository)
+ */
+public interface ProductListingRepository {
+
+    /**
+     * Page of listings matching the specification
+     */
+    Page<ProductListing> findListings(Specification<Product> spec, Pageable pageable);
+
+    /**
+     * First maxResults listings matching the specification
+     */
+    List<ProductListing> findListings(Specification<Product> spec, Sort sort, int maxResults);
+}
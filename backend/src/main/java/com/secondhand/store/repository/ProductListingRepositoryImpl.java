@@ -0,0 +1,91 @@
+package com.secondhand.store.repository;
+
+import com.secondhand.store.dto.ProductListing;
+import com.secondhand.store.entity.Category;
+import com.secondhand.store.entity.Product;
+import com.secondhand.store.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.ListJoin;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+
+public class ProductListingRepositoryImpl implements ProductListingRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<ProductListing> findListings(Specification<Product> spec, Pageable pageable) {
+        TypedQuery<ProductListing> query = entityManager.createQuery(listingQuery(spec, pageable.getSort()));
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> count(spec));
+    }
+
+    @Override
+    public List<ProductListing> findListings(Specification<Product> spec, Sort sort, int maxResults) {
+        return entityManager.createQuery(listingQuery(spec, sort))
+                .setMaxResults(maxResults)
+                .getResultList();
+    }
+
+    /**
+     * SELECT new ProductListing(...) joining seller, category and only the first image
+     */
+    private CriteriaQuery<ProductListing> listingQuery(Specification<Product> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductListing> query = cb.createQuery(ProductListing.class);
+        Root<Product> product = query.from(Product.class);
+        Join<Product, User> seller = product.join("seller");
+        Join<Product, Category> category = product.join("category");
+        ListJoin<Product, String> image = product.joinList("imageUrls", JoinType.LEFT);
+        image.on(cb.equal(image.index(), 0));
+
+        query.select(cb.construct(ProductListing.class,
+                product.get("id"),
+                product.get("name"),
+                product.get("price"),
+                product.get("condition"),
+                image,
+                product.get("locationCity"),
+                cb.concat(cb.concat(seller.<String>get("firstName"), " "), seller.<String>get("lastName")),
+                category.get("name")));
+
+        Predicate predicate = spec.toPredicate(product, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, product, cb));
+        return query;
+    }
+
+    private long count(Specification<Product> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Product> product = query.from(Product.class);
+        query.select(cb.count(product));
+
+        Predicate predicate = spec.toPredicate(product, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
@@ -3,18 +3,30 @@ package com.secondhand.store.repository;
 import com.secondhand.store.entity.Product;
 import com.secondhand.store.entity.Category;
 import com.secondhand.store.entity.User;
+import com.secondhand.store.event.ProductSnapshot;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+        ProductListingRepository {
 
     // Basic product queries
 
@@ -28,6 +40,32 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      */
     Page<Product> findByIsAvailableTrue(Pageable pageable);
 
+    /**
+     * Find available products with keyset scrolling (no OFFSET, no count query)
+     */
+    Window<Product> findByIsAvailableTrue(ScrollPosition position, Sort sort, Limit limit);
+
+    // Fetch-planned reads: one statement for the products and their to-one
+    // associations; imageUrls of a page come in one batch (default_batch_fetch_size)
+
+    /**
+     * Product list page with category and seller already loaded
+     */
+    @EntityGraph("Product.summary")
+    Page<Product> findSummaryByIsAvailableTrue(Pageable pageable);
+
+    /**
+     * Products of a category with category and seller already loaded
+     */
+    @EntityGraph("Product.summary")
+    List<Product> findSummaryByCategoryIdAndIsAvailableTrueOrderByCreatedAtDesc(Long categoryId);
+
+    /**
+     * Product detail page with category, seller and images in one statement
+     */
+    @EntityGraph("Product.detail")
+    Optional<Product> findDetailById(Long id);
+
     /**
      * Find products by category
      */
@@ -85,36 +123,26 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findTop20ByIsAvailableTrueOrderByCreatedAtDesc();
 
     /**
-     * Find most viewed products
+     * Find most viewed products, walking product_stats by view count
      */
+    @Query("SELECT p FROM ProductStats s JOIN s.product p WHERE p.isAvailable = true " +
+            "ORDER BY s.viewCount DESC, s.productId LIMIT 10")
     List<Product> findTop10ByIsAvailableTrueOrderByViewCountDesc();
 
+    /**
+     * Most viewed available products of one category
+     */
+    @Query("SELECT p FROM ProductStats s JOIN s.product p WHERE p.isAvailable = true AND p.category.id = :categoryId " +
+            "ORDER BY s.viewCount DESC, s.productId")
+    List<Product> findMostViewedInCategory(@Param("categoryId") Long categoryId, Pageable pageable);
+
     /**
      * Find cheapest products first
      */
     List<Product> findByIsAvailableTrueOrderByPriceAsc();
 
     // Complex custom queries
-
-    /**
-     * Search products by multiple criteria
-     */
-    @Query("SELECT p FROM Product p WHERE " +
-            "p.isAvailable = true AND " +
-            "(:name IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%'))) AND " +
-            "(:categoryId IS NULL OR p.category.id = :categoryId) AND " +
-            "(:minPrice IS NULL OR p.price >= :minPrice) AND " +
-            "(:maxPrice IS NULL OR p.price <= :maxPrice) AND " +
-            "(:condition IS NULL OR p.condition = :condition) AND " +
-            "(:city IS NULL OR LOWER(p.locationCity) = LOWER(:city))")
-    Page<Product> searchProducts(
-            @Param("name") String name,
-            @Param("categoryId") Long categoryId,
-            @Param("minPrice") BigDecimal minPrice,
-            @Param("maxPrice") BigDecimal maxPrice,
-            @Param("condition") Product.ProductCondition condition,
-            @Param("city") String city,
-            Pageable pageable);
+    // (multi-criteria search is built from ProductSpecifications)
 
     /**
      * Find similar products (same category, similar price range)
@@ -156,6 +184,50 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
             "LOWER(p.brand) LIKE LOWER(CONCAT('%', :searchTerm, '%')))")
     Page<Product> fullTextSearch(@Param("searchTerm") String searchTerm, Pageable pageable);
 
+    /**
+     * Ranked full text search over the products.search_vector tsvector column (GIN indexed)
+     */
+    @Query(value = "SELECT p.* FROM products p, websearch_to_tsquery('english', :searchTerm) q " +
+            "WHERE p.is_available = true AND p.search_vector @@ q " +
+            "ORDER BY ts_rank(p.search_vector, q) DESC, p.created_at DESC",
+            countQuery = "SELECT COUNT(*) FROM products p " +
+                    "WHERE p.is_available = true " +
+                    "AND p.search_vector @@ websearch_to_tsquery('english', :searchTerm)",
+            nativeQuery = true)
+    Page<Product> rankedFullTextSearch(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    /**
+     * Ranked search on the product name only (GIN expression index)
+     */
+    @Query(value = "SELECT p.* FROM products p, websearch_to_tsquery('english', :name) q " +
+            "WHERE p.is_available = true AND to_tsvector('english', p.name) @@ q " +
+            "ORDER BY ts_rank(to_tsvector('english', p.name), q) DESC, p.created_at DESC",
+            nativeQuery = true)
+    List<Product> rankedNameSearch(@Param("name") String name);
+
+    /**
+     * Substring or typo-tolerant name search (pg_trgm GIN index), closest match first
+     */
+    @Query(value = "SELECT p.* FROM products p " +
+            "WHERE p.is_available = true AND " +
+            "(upper(p.name) LIKE '%' || upper(:name) || '%' OR upper(:name) <% upper(p.name)) " +
+            "ORDER BY word_similarity(upper(:name), upper(p.name)) DESC, p.created_at DESC",
+            nativeQuery = true)
+    List<Product> trigramNameSearch(@Param("name") String name);
+
+    /**
+     * Fuzzy match on name or brand, scored by pg_trgm word similarity
+     */
+    @Query(value = "SELECT p.id AS id, " +
+            "GREATEST(word_similarity(upper(:term), upper(p.name)), " +
+            "COALESCE(word_similarity(upper(:term), upper(p.brand)), 0)) AS score " +
+            "FROM products p " +
+            "WHERE p.is_available = true AND " +
+            "(upper(:term) <% upper(p.name) OR upper(:term) <% upper(p.brand)) " +
+            "ORDER BY score DESC, p.id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<SimilarityMatch> findFuzzyMatches(@Param("term") String term, @Param("limit") int limit);
+
     // Analytics queries
 
     /**
@@ -170,4 +242,55 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT c.name, AVG(p.price) FROM Product p JOIN p.category c " +
             "WHERE p.isAvailable = true GROUP BY c.name")
     List<Object[]> getAveragePriceByCategory();
-}
\ No newline at end of file
+
+    /**
+     * Count and price sum of available products per category and condition, in one scan
+     */
+    @Query("SELECT p.category.id AS categoryId, p.condition AS condition, " +
+            "COUNT(p) AS productCount, SUM(p.price) AS priceSum " +
+            "FROM Product p WHERE p.isAvailable = true GROUP BY p.category.id, p.condition")
+    List<CategoryConditionTotals> sumAvailableByCategoryAndCondition();
+
+    // Read model loading
+
+    /**
+     * Load the columns needed to build in-memory indexes, without entities
+     */
+    @Query("SELECT new com.secondhand.store.event.ProductSnapshot(" +
+            "p.id, p.name, p.description, p.brand, p.keywords, p.category.id, " +
+            "p.condition, p.price, p.locationCity, p.createdAt, COALESCE(s.viewCount, 0L), p.isAvailable) " +
+            "FROM Product p LEFT JOIN p.stats s WHERE p.isAvailable = true")
+    List<ProductSnapshot> findAvailableSnapshots();
+
+    /**
+     * Current columns of the given products, available or not; deleted ones are absent
+     */
+    @Query("SELECT new com.secondhand.store.event.ProductSnapshot(" +
+            "p.id, p.name, p.description, p.brand, p.keywords, p.category.id, " +
+            "p.condition, p.price, p.locationCity, p.createdAt, COALESCE(s.viewCount, 0L), p.isAvailable) " +
+            "FROM Product p LEFT JOIN p.stats s WHERE p.id IN (:ids)")
+    List<ProductSnapshot> findSnapshotsByIds(@Param("ids") Collection<Long> ids);
+
+    // Inventory
+
+    /**
+     * Takes units off an available listing if at least that many are left: 1 when
+     * reserved, 0 otherwise. The version is bumped like a JPA update would.
+     */
+    @Modifying
+    @Query("UPDATE Product p SET p.quantity = p.quantity - :quantity, p.version = p.version + 1 " +
+            "WHERE p.id = :id AND p.quantity >= :quantity AND p.isAvailable = true AND p.isSold = false")
+    int reserveQuantity(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.quantity = p.quantity + :quantity, p.version = p.version + 1 WHERE p.id = :id")
+    int restoreQuantity(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * Marks the product sold unless it already is: 1 when this call sold it, 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE Product p SET p.isSold = true, p.isAvailable = false, p.soldAt = :soldAt, p.quantity = 0, " +
+            "p.version = p.version + 1 WHERE p.id = :id AND p.isSold = false")
+    int markSoldIfUnsold(@Param("id") Long id, @Param("soldAt") LocalDateTime soldAt);
+}
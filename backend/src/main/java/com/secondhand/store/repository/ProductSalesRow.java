@@ -0,0 +1,17 @@
+package com.secondhand.store.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection of one product's sales over a range, with its current name
+ */
+public interface ProductSalesRow {
+
+    Long getProductId();
+
+    String getProductName();
+
+    Long getItemCount();
+
+    BigDecimal getRevenue();
+}
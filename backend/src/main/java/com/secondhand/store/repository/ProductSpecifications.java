@@ -0,0 +1,90 @@
+package com.secondhand.store.repository;
+
+import com.secondhand.store.dto.ProductSearchCriteria;
+import com.secondhand.store.entity.Product;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Composable product filters. Only the filters that are actually supplied become
+ * SQL predicates, so each combination gets its own statement (and its own
+ * prepared-statement plan) instead of one catch-all plan full of "? IS NULL OR".
+ * With hibernate.criteria.plan_cache_enabled, Hibernate also translates each
+ * combination to SQL only once.
+ */
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {}
+
+    public static Specification<Product> matching(ProductSearchCriteria criteria) {
+        List<Specification<Product>> filters = new ArrayList<>();
+        filters.add(isAvailable());
+        if (criteria.hasName()) {
+            filters.add(nameContains(criteria.name()));
+        }
+        if (criteria.categoryId() != null) {
+            filters.add(inCategory(criteria.categoryId()));
+        }
+        if (criteria.minPrice() != null) {
+            filters.add(priceAtLeast(criteria.minPrice()));
+        }
+        if (criteria.maxPrice() != null) {
+            filters.add(priceAtMost(criteria.maxPrice()));
+        }
+        if (criteria.condition() != null) {
+            filters.add(hasCondition(criteria.condition()));
+        }
+        if (criteria.hasCity()) {
+            filters.add(inCity(criteria.city()));
+        }
+        return Specification.allOf(filters);
+    }
+
+    public static Specification<Product> isAvailable() {
+        return (root, query, cb) -> cb.isTrue(root.get("isAvailable"));
+    }
+
+    /**
+     * upper(name) LIKE '%X%', the expression covered by idx_products_name_trgm
+     */
+    public static Specification<Product> nameContains(String name) {
+        String pattern = "%" + escapeLike(name.trim().toUpperCase(Locale.ROOT)) + "%";
+        return (root, query, cb) -> cb.like(cb.upper(root.get("name")), pattern, '\\');
+    }
+
+    public static Specification<Product> inCategory(Long categoryId) {
+        return (root, query, cb) -> cb.equal(root.get("category").get("id"), categoryId);
+    }
+
+    public static Specification<Product> soldBy(Long sellerId) {
+        return (root, query, cb) -> cb.equal(root.get("seller").get("id"), sellerId);
+    }
+
+    public static Specification<Product> priceAtLeast(BigDecimal minPrice) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), minPrice);
+    }
+
+    public static Specification<Product> priceAtMost(BigDecimal maxPrice) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), maxPrice);
+    }
+
+    public static Specification<Product> hasCondition(Product.ProductCondition condition) {
+        return (root, query, cb) -> cb.equal(root.get("condition"), condition);
+    }
+
+    /**
+     * upper(location_city) = 'X', the expression covered by idx_products_location_city_upper
+     */
+    public static Specification<Product> inCity(String city) {
+        String normalized = city.trim().toUpperCase(Locale.ROOT);
+        return (root, query, cb) -> cb.equal(cb.upper(root.get("locationCity")), normalized);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
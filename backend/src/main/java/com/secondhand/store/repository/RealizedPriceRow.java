@@ -0,0 +1,19 @@
+package com.secondhand.store.repository;
+
+import com.secondhand.store.entity.Product;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection of an order line as a realized price: category, condition sold in, unit price and quantity
+ */
+public interface RealizedPriceRow {
+
+    Long getCategoryId();
+
+    Product.ProductCondition getCondition();
+
+    BigDecimal getPrice();
+
+    Integer getQuantity();
+}
@@ -0,0 +1,15 @@
+package com.secondhand.store.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection of sales summed per key (a category or a seller id): units sold and revenue
+ */
+public interface SalesTotalsRow {
+
+    Long getKeyId();
+
+    Long getItemCount();
+
+    BigDecimal getRevenue();
+}
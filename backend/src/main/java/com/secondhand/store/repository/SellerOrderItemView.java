@@ -0,0 +1,30 @@
+package com.secondhand.store.repository;
+
+import com.secondhand.store.entity.Order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Projection of one sold item for the seller dashboard: the line and its order's status, no entities
+ */
+public interface SellerOrderItemView {
+
+    Long getId();
+
+    Long getOrderId();
+
+    String getOrderNumber();
+
+    Order.OrderStatus getOrderStatus();
+
+    Long getProductId();
+
+    String getProductName();
+
+    Integer getQuantity();
+
+    BigDecimal getPriceAtOrder();
+
+    LocalDateTime getCreatedAt();
+}
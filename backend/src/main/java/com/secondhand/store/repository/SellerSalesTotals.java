@@ -0,0 +1,15 @@
+package com.secondhand.store.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection of one seller's sales over a range: orders, units sold and revenue
+ */
+public interface SellerSalesTotals {
+
+    Long getOrderCount();
+
+    Long getItemCount();
+
+    BigDecimal getRevenue();
+}
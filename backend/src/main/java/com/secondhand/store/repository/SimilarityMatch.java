@@ -0,0 +1,11 @@
+package com.secondhand.store.repository;
+
+/**
+ * Projection for native trigram queries: row id and pg_trgm similarity score
+ */
+public interface SimilarityMatch {
+
+    Long getId();
+
+    Double getScore();
+}
@@ -58,6 +58,18 @@ public interface UserRepository extends JpaRepository<User, Long> {
             "LOWER(u.lastName) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
     List<User> searchUsersByName(@Param("searchTerm") String searchTerm);
 
+    /**
+     * Typo-tolerant name search (pg_trgm GIN indexes), scored by trigram similarity
+     */
+    @Query(value = "SELECT u.id AS id, " +
+            "GREATEST(similarity(lower(u.first_name), lower(:searchTerm)), " +
+            "similarity(lower(u.last_name), lower(:searchTerm))) AS score " +
+            "FROM users u " +
+            "WHERE lower(u.first_name) % lower(:searchTerm) OR lower(u.last_name) % lower(:searchTerm) " +
+            "ORDER BY score DESC, u.id LIMIT :limit",
+            nativeQuery = true)
+    List<SimilarityMatch> findFuzzyNameMatches(@Param("searchTerm") String searchTerm, @Param("limit") int limit);
+
     /**
      * Get user statistics
      */
@@ -0,0 +1,224 @@
+package com.secondhand.store.service;
+
+import com.secondhand.store.entity.Product;
+import com.secondhand.store.event.ProductChangedEvent;
+import com.secondhand.store.event.ProductSnapshot;
+import com.secondhand.store.repository.CategoryConditionTotals;
+import com.secondhand.store.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Count and price sum of the available products per (category, condition),
+ * kept in memory so the dashboard statistics are a read of a few dozen cells
+ * instead of a GROUP BY over the products table.
+ * <p>
+ * Every ProductChangedEvent is applied as a delta: the old state's contribution
+ * is taken out and the new one's put in. A periodic reconciliation recomputes the
+ * cells from the database and replaces them, correcting any drift (e.g. products
+ * written outside ProductService).
+ * <p>
+ * Products changed while the database is read may or may not be in what was read,
+ * so their events are recorded meanwhile. At the swap, each such product's
+ * contribution as read is replaced by its latest event's state, read from the
+ * same snapshot, so the change is neither lost nor counted twice.
+ */
+@Component
+public class CategoryStatsAggregate {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoryStatsAggregate.class);
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate snapshotTransaction;
+
+    // Deltas are applied under the read lock; reconciliation swaps all cells under the write lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile Map<Cell, Totals> cells = new ConcurrentHashMap<>();
+    private volatile boolean ready = false;
+
+    // Latest event per product since the running reconciliation started reading, null otherwise
+    private volatile Map<Long, ProductChangedEvent> changedDuringReload;
+
+    public CategoryStatsAggregate(ProductRepository productRepository, PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        // The totals and the changed products are read as of the same moment
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    // ============ MAINTENANCE ============
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        reconcile();
+        ready = true;
+    }
+
+    /**
+     * Recomputes every cell from the database and returns how many cells had drifted
+     */
+    @Scheduled(fixedDelayString = "${store.category-stats.reconcile-interval-ms:600000}",
+            initialDelayString = "${store.category-stats.reconcile-interval-ms:600000}")
+    public synchronized int reconcile() {
+        Map<Long, ProductChangedEvent> changed = new ConcurrentHashMap<>();
+        changedDuringReload = changed;
+        int drifted;
+        try {
+            drifted = snapshotTransaction.execute(status -> reload(changed));
+        } finally {
+            changedDuringReload = null;
+        }
+        if (ready && drifted > 0) {
+            log.info("Category statistics reconciled, {} cells had drifted", drifted);
+        }
+        return drifted;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.readLock().lock();
+        try {
+            apply(cells, event.previous(), -1);
+            apply(cells, event.product(), 1);
+            Map<Long, ProductChangedEvent> changed = changedDuringReload;
+            if (changed != null) {
+                changed.put(event.productId(), event);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ============ QUERYING ============
+
+    /**
+     * Totals of the available products per category id, summed over conditions
+     */
+    public SortedMap<Long, Totals> byCategory() {
+        SortedMap<Long, Totals> totals = new TreeMap<>();
+        cells.forEach((cell, cellTotals) -> totals.merge(cell.categoryId(), cellTotals, Totals::plus));
+        totals.values().removeIf(Totals::isEmpty);
+        return totals;
+    }
+
+    /**
+     * Totals of the available products per condition, summed over categories
+     */
+    public Map<Product.ProductCondition, Totals> byCondition() {
+        Map<Product.ProductCondition, Totals> totals = new HashMap<>();
+        cells.forEach((cell, cellTotals) -> totals.merge(cell.condition(), cellTotals, Totals::plus));
+        totals.values().removeIf(Totals::isEmpty);
+        return totals;
+    }
+
+    // ============ INTERNALS ============
+
+    /**
+     * Reads the totals, then swaps them in with the products changed meanwhile
+     * set to their latest event's state; returns how many cells had drifted
+     */
+    private int reload(Map<Long, ProductChangedEvent> changed) {
+        Map<Cell, Totals> fresh = new ConcurrentHashMap<>();
+        for (CategoryConditionTotals row : productRepository.sumAvailableByCategoryAndCondition()) {
+            if (row.getCategoryId() != null) {
+                fresh.put(new Cell(row.getCategoryId(), row.getCondition()),
+                        new Totals(row.getProductCount(), row.getPriceSum() != null ? row.getPriceSum() : BigDecimal.ZERO));
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            // Events from here on are applied to the fresh cells as deltas
+            changedDuringReload = null;
+            if (!changed.isEmpty()) {
+                for (ProductSnapshot read : productRepository.findSnapshotsByIds(changed.keySet())) {
+                    apply(fresh, read, -1);
+                }
+                for (ProductChangedEvent event : changed.values()) {
+                    apply(fresh, event.product(), 1);
+                }
+            }
+            int drifted = countDifferences(cells, fresh);
+            cells = fresh;
+            return drifted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds (sign 1) or removes (sign -1) the snapshot's contribution; only available products count
+     */
+    private static void apply(Map<Cell, Totals> cells, ProductSnapshot product, int sign) {
+        if (product == null || !product.available() || product.categoryId() == null) {
+            return;
+        }
+        BigDecimal price = product.price() != null ? product.price() : BigDecimal.ZERO;
+        Totals delta = new Totals(sign, sign < 0 ? price.negate() : price);
+        cells.merge(new Cell(product.categoryId(), product.condition()), delta, Totals::plus);
+    }
+
+    private static int countDifferences(Map<Cell, Totals> current, Map<Cell, Totals> fresh) {
+        int differences = 0;
+        for (Map.Entry<Cell, Totals> entry : fresh.entrySet()) {
+            if (!entry.getValue().sameAs(current.get(entry.getKey()))) {
+                differences++;
+            }
+        }
+        for (Map.Entry<Cell, Totals> entry : current.entrySet()) {
+            if (!fresh.containsKey(entry.getKey()) && !entry.getValue().isEmpty()) {
+                differences++;
+            }
+        }
+        return differences;
+    }
+
+    private record Cell(Long categoryId, Product.ProductCondition condition) {}
+
+    /**
+     * Number of available products and the sum of their prices
+     */
+    public record Totals(long count, BigDecimal priceSum) {
+
+        Totals plus(Totals other) {
+            return new Totals(count + other.count, priceSum.add(other.priceSum));
+        }
+
+        boolean isEmpty() {
+            return count == 0;
+        }
+
+        boolean sameAs(Totals other) {
+            return other != null && count == other.count && priceSum.compareTo(other.priceSum) == 0;
+        }
+
+        /**
+         * Average price as AVG() would return it, null when there are no products
+         */
+        public Double averagePrice() {
+            return count > 0 ? priceSum.doubleValue() / count : null;
+        }
+    }
+}
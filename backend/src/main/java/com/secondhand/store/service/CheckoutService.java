@@ -0,0 +1,145 @@
+package com.secondhand.store.service;
+
+import com.secondhand.store.dto.CheckoutRequest;
+import com.secondhand.store.dto.CheckoutResult;
+import com.secondhand.store.entity.CartItem;
+import com.secondhand.store.entity.InventoryHold;
+import com.secondhand.store.entity.Order;
+import com.secondhand.store.entity.OrderItem;
+import com.secondhand.store.entity.Product;
+import com.secondhand.store.entity.User;
+import com.secondhand.store.event.ProductChangedEvent;
+import com.secondhand.store.event.ProductSnapshot;
+import com.secondhand.store.repository.CartItemRepository;
+import com.secondhand.store.repository.OrderRepository;
+import com.secondhand.store.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Turns a buyer's cart into an order in one transaction and a fixed number of
+ * round trips: the cart with products and sellers in one query, the order and
+ * its items in one batched flush (ids come from pooled sequences), and one
+ * set-based delete of the cart. Stock is taken through InventoryService, from
+ * the holds placed by reserveCart when the buyer started checking out.
+ */
+@Service
+// Checked exceptions must roll back too, or a failed checkout would keep the stock it took
+@Transactional(rollbackFor = Exception.class)
+public class CheckoutService {
+
+    private final CartItemRepository cartItemRepository;
+    private final OrderRepository orderRepository;
+    private final UserRepository userRepository;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final InventoryService inventoryService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CheckoutService(CartItemRepository cartItemRepository, OrderRepository orderRepository,
+                           UserRepository userRepository, OrderNumberGenerator orderNumberGenerator,
+                           InventoryService inventoryService, ApplicationEventPublisher eventPublisher) {
+        this.cartItemRepository = cartItemRepository;
+        this.orderRepository = orderRepository;
+        this.userRepository = userRepository;
+        this.orderNumberGenerator = orderNumberGenerator;
+        this.inventoryService = inventoryService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // ============ CHECKOUT ============
+
+    /**
+     * Start of checkout: holds the stock for every cart line until the buyer pays or
+     * the holds expire. Replaces any holds from an earlier attempt.
+     */
+    public List<InventoryHold> reserveCart(Long buyerId) throws Exception {
+        List<CartItem> cart = cartItemRepository.findWithProductByUserIdOrderByCreatedAtDesc(buyerId);
+        if (cart.isEmpty()) {
+            throw new Exception("Cart is empty");
+        }
+        for (CartItem item : cart) {
+            checkPurchasable(item, buyerId);
+        }
+        inventoryService.releaseAll(buyerId);
+        return inventoryService.reserveAll(buyerId, quantities(cart));
+    }
+
+    /**
+     * Creates a PENDING order from everything in the buyer's cart, at the products'
+     * current prices, and empties the cart. Units come from the buyer's holds, or
+     * straight from stock when there are none (or they expired). Listings this
+     * sells out are marked sold. Nothing is written if any line fails.
+     */
+    public CheckoutResult checkout(Long buyerId, CheckoutRequest request) throws Exception {
+        User buyer = userRepository.findById(buyerId)
+                .orElseThrow(() -> new Exception("User not found with ID: " + buyerId));
+        if (request.shippingAddress() == null || request.shippingAddress().isBlank()) {
+            throw new Exception("Shipping address is required");
+        }
+
+        List<CartItem> cart = cartItemRepository.findWithProductByUserIdOrderByCreatedAtDesc(buyerId);
+        if (cart.isEmpty()) {
+            throw new Exception("Cart is empty");
+        }
+
+        BigDecimal total = BigDecimal.ZERO;
+        int units = 0;
+        for (CartItem item : cart) {
+            checkPurchasable(item, buyerId);
+            total = total.add(item.getProduct().getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+            units += item.getQuantity();
+        }
+        List<Long> soldOut = inventoryService.commitPurchase(buyerId, quantities(cart));
+
+        Order order = new Order(buyer, orderNumberGenerator.next(), total, request.shippingAddress());
+        order.setShippingCity(request.shippingCity());
+        order.setShippingState(request.shippingState());
+        order.setShippingPostalCode(request.shippingPostalCode());
+        if (request.shippingCountry() != null) {
+            order.setShippingCountry(request.shippingCountry());
+        }
+        order.setPhoneNumber(request.phoneNumber());
+        order.setEmail(request.email() != null ? request.email() : buyer.getEmail());
+        order.setPaymentMethod(request.paymentMethod());
+        order.setNotes(request.notes());
+        for (CartItem item : cart) {
+            // Product and seller are already loaded, so this touches no lazy proxies
+            order.addOrderItem(new OrderItem(order, item.getProduct(), item.getQuantity()));
+        }
+        Order savedOrder = orderRepository.save(order);
+        cartItemRepository.deleteByUser(buyer);
+
+        for (CartItem item : cart) {
+            if (soldOut.contains(item.getProduct().getId())) {
+                eventPublisher.publishEvent(ProductChangedEvent.sold(ProductSnapshot.of(item.getProduct())));
+            }
+        }
+        return new CheckoutResult(savedOrder.getId(), savedOrder.getOrderNumber(), total, cart.size(), units);
+    }
+
+    // ============ HELPERS ============
+
+    private void checkPurchasable(CartItem item, Long buyerId) throws Exception {
+        Product product = item.getProduct();
+        if (!Boolean.TRUE.equals(product.getIsAvailable()) || Boolean.TRUE.equals(product.getIsSold())) {
+            throw new Exception("Product is no longer available: " + product.getName());
+        }
+        if (product.getSeller().getId().equals(buyerId)) {
+            throw new Exception("Cannot buy your own product: " + product.getName());
+        }
+    }
+
+    private static SortedMap<Long, Integer> quantities(List<CartItem> cart) {
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        for (CartItem item : cart) {
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+}
@@ -0,0 +1,150 @@
+package com.secondhand.store.service;
+
+import com.secondhand.store.dto.CounterStats;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind buffer for one product counter column. Deltas accumulate in an
+ * AtomicLong per product and are written with one JDBC batch of
+ * "column = column + ?" upserts, so hot rows are never read-modify-written and
+ * concurrent increments are never lost. Deltas may be negative.
+ * <p>
+ * A flush subtracts only what it wrote: a failed flush keeps everything for the
+ * next one, and deltas added while a flush runs stay pending. Products whose
+ * delta is back to zero are dropped, so the map only holds recently touched ones.
+ */
+final class CounterBuffer {
+
+    private final String name;
+    private final String upsertSql;
+
+    // Marks a delta that has been dropped from the map; an add that finds it starts a new one
+    private static final long RETIRED = Long.MIN_VALUE;
+
+    // product id -> delta not yet written. An entry is only removed after its value was
+    // swapped from 0 to RETIRED, so no increment can land in an entry that is gone.
+    private final Map<Long, AtomicLong> pending = new ConcurrentHashMap<>();
+
+    // When the oldest unflushed delta was added (epoch millis), 0 when nothing is pending
+    private final AtomicLong oldestPendingAt = new AtomicLong();
+
+    private volatile Instant lastFlushAt;
+    private volatile Duration lastFlushDuration = Duration.ZERO;
+    private volatile long lastFlushedDelta;
+    private final AtomicLong totalFlushedDelta = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+
+    /**
+     * upsertSql takes (product id, delta) and adds the delta to the counter column
+     */
+    CounterBuffer(String name, String upsertSql) {
+        this.name = name;
+        this.upsertSql = upsertSql;
+    }
+
+    void add(Long productId, long delta) {
+        while (true) {
+            AtomicLong current = pending.computeIfAbsent(productId, id -> new AtomicLong());
+            long value = current.get();
+            if (value == RETIRED) {
+                pending.remove(productId, current);
+            } else if (current.compareAndSet(value, value + delta)) {
+                break;
+            }
+        }
+        if (oldestPendingAt.get() == 0) {
+            oldestPendingAt.compareAndSet(0, System.currentTimeMillis());
+        }
+    }
+
+    long pending(Long productId) {
+        AtomicLong delta = pending.get(productId);
+        long value = delta != null ? delta.get() : 0;
+        return value != RETIRED ? value : 0;
+    }
+
+    /**
+     * Forgets the product's unwritten delta, e.g. once the product is deleted
+     */
+    synchronized void discard(Long productId) {
+        AtomicLong delta = pending.remove(productId);
+        if (delta != null) {
+            delta.set(RETIRED);
+        }
+    }
+
+    /**
+     * Writes all pending deltas in one batch and returns the sum of what was written
+     */
+    synchronized long flush(JdbcTemplate jdbcTemplate) {
+        long started = System.nanoTime();
+        long flushingSince = oldestPendingAt.getAndSet(0);
+
+        // Sorted by id so every flush locks rows in the same order
+        SortedMap<Long, Long> deltas = new TreeMap<>();
+        pending.forEach((productId, delta) -> {
+            long value = delta.get();
+            if (value != 0 && value != RETIRED) {
+                deltas.put(productId, value);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        List<Object[]> batch = new ArrayList<>(deltas.size());
+        deltas.forEach((productId, delta) -> batch.add(new Object[]{productId, delta}));
+        try {
+            jdbcTemplate.batchUpdate(upsertSql, batch);
+        } catch (RuntimeException e) {
+            oldestPendingAt.compareAndSet(0, flushingSince);
+            failedFlushes.incrementAndGet();
+            throw e;
+        }
+
+        long flushed = 0;
+        for (Map.Entry<Long, Long> delta : deltas.entrySet()) {
+            // Entries are only removed under this monitor, so the one flushed is still there
+            AtomicLong current = pending.get(delta.getKey());
+            if (current.addAndGet(-delta.getValue()) == 0 && current.compareAndSet(0, RETIRED)) {
+                pending.remove(delta.getKey(), current);
+            }
+            flushed += delta.getValue();
+        }
+
+        lastFlushAt = Instant.now();
+        lastFlushDuration = Duration.ofNanos(System.nanoTime() - started);
+        lastFlushedDelta = flushed;
+        totalFlushedDelta.addAndGet(flushed);
+        return flushed;
+    }
+
+    CounterStats stats() {
+        long pendingDelta = 0;
+        boolean anyPending = false;
+        for (AtomicLong delta : pending.values()) {
+            long value = delta.get();
+            if (value != RETIRED) {
+                pendingDelta += value;
+                anyPending |= value != 0;
+            }
+        }
+        long since = oldestPendingAt.get();
+        Duration flushLag = since == 0 || !anyPending
+                ? Duration.ZERO
+                : Duration.ofMillis(Math.max(System.currentTimeMillis() - since, 0));
+
+        return new CounterStats(name, pendingDelta, pending.size(), flushLag, lastFlushAt,
+                lastFlushDuration, lastFlushedDelta, totalFlushedDelta.get(), failedFlushes.get());
+    }
+}
@@ -0,0 +1,89 @@
+package com.secondhand.store.service;
+
+import com.secondhand.store.event.FavoriteChangedEvent;
+import com.secondhand.store.repository.FavoriteRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Favorited product ids of recently active users, so that marking the hearts
+ * on a whole listing page is a set lookup instead of a query per product.
+ * Least recently used users are evicted past the configured size.
+ */
+@Component
+public class FavoriteIdCache {
+
+    private final FavoriteRepository favoriteRepository;
+    private final int maxUsers;
+
+    // user id -> immutable set of favorited product ids, in access order
+    private final LinkedHashMap<Long, Set<Long>> byUser;
+
+    // user id -> loads in flight for that user, so one that raced with a change of
+    // the same user isn't cached; guarded by byUser like the cache itself
+    private final Map<Long, Loads> loading = new HashMap<>();
+
+    public FavoriteIdCache(FavoriteRepository favoriteRepository,
+                           @Value("${store.favorites.cached-users:10000}") int maxUsers) {
+        this.favoriteRepository = favoriteRepository;
+        this.maxUsers = Math.max(maxUsers, 1);
+        this.byUser = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Set<Long>> eldest) {
+                return size() > FavoriteIdCache.this.maxUsers;
+            }
+        };
+    }
+
+    public Set<Long> favoriteIds(Long userId) {
+        Loads loads;
+        synchronized (byUser) {
+            Set<Long> cached = byUser.get(userId);
+            if (cached != null) {
+                return cached;
+            }
+            loads = loading.computeIfAbsent(userId, id -> new Loads());
+            loads.inFlight++;
+        }
+
+        Set<Long> loaded = null;
+        try {
+            loaded = Set.copyOf(favoriteRepository.findProductIdsByUserId(userId));
+        } finally {
+            synchronized (byUser) {
+                if (loaded != null && !loads.changed) {
+                    byUser.putIfAbsent(userId, loaded);
+                }
+                if (--loads.inFlight == 0) {
+                    loading.remove(userId);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Drops the user's entry once the change is committed; the next lookup reloads it
+     */
+    @TransactionalEventListener
+    public void onFavoriteChanged(FavoriteChangedEvent event) {
+        synchronized (byUser) {
+            byUser.remove(event.userId());
+            Loads loads = loading.get(event.userId());
+            if (loads != null) {
+                loads.changed = true;
+            }
+        }
+    }
+
+    private static final class Loads {
+        int inFlight;
+        boolean changed;
+    }
+}
@@ -0,0 +1,118 @@
+package com.secondhand.store.service;
+
+import com.secondhand.store.dto.CursorPage;
+import com.secondhand.store.entity.Favorite;
+import com.secondhand.store.entity.Product;
+import com.secondhand.store.event.FavoriteChangedEvent;
+import com.secondhand.store.repository.FavoriteRepository;
+import com.secondhand.store.repository.ProductRepository;
+import com.secondhand.store.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+@Service
+@Transactional
+public class FavoriteService {
+
+    // Newest first; id breaks ties between favorites created in the same instant
+    private static final Sort FAVORITES_SORT = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
+    private final FavoriteRepository favoriteRepository;
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final FavoriteIdCache favoriteIdCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public FavoriteService(FavoriteRepository favoriteRepository, ProductRepository productRepository,
+                           UserRepository userRepository, FavoriteIdCache favoriteIdCache,
+                           ApplicationEventPublisher eventPublisher) {
+        this.favoriteRepository = favoriteRepository;
+        this.productRepository = productRepository;
+        this.userRepository = userRepository;
+        this.favoriteIdCache = favoriteIdCache;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // ============ FAVORITE MANAGEMENT ============
+
+    /**
+     * Idempotent: returns false when the product was already a favorite.
+     * favorite_count is updated by ProductCounters in the background.
+     */
+    public boolean addFavorite(Long userId, Long productId) throws Exception {
+        if (!userRepository.existsById(userId)) {
+            throw new Exception("User not found with ID: " + userId);
+        }
+        if (!productRepository.existsById(productId)) {
+            throw new Exception("Product not found with ID: " + productId);
+        }
+
+        boolean added = favoriteRepository.insertIfAbsent(userId, productId) == 1;
+        if (added) {
+            eventPublisher.publishEvent(new FavoriteChangedEvent(userId, productId, true));
+        }
+        return added;
+    }
+
+    /**
+     * Idempotent: returns false when the product was not a favorite
+     */
+    public boolean removeFavorite(Long userId, Long productId) {
+        boolean removed = favoriteRepository.deleteByUserIdAndProductId(userId, productId) == 1;
+        if (removed) {
+            eventPublisher.publishEvent(new FavoriteChangedEvent(userId, productId, false));
+        }
+        return removed;
+    }
+
+    // ============ FAVORITE QUERIES ============
+
+    /**
+     * "My favorites", most recently favorited first, keyset-paginated
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Product> getFavorites(Long userId, String cursor, int size) throws Exception {
+        ScrollPosition position = ScrollPosition.keyset();
+        if (cursor != null && !cursor.isBlank()) {
+            KeysetCursor keysetCursor = KeysetCursor.decode(cursor);
+            if (!keysetCursor.sort().equals(FAVORITES_SORT)) {
+                throw new Exception("Invalid cursor");
+            }
+            position = keysetCursor.position();
+        }
+
+        Window<Favorite> window = favoriteRepository.findByUserId(userId, position, FAVORITES_SORT, Limit.of(size));
+        return KeysetCursor.toPage(window.map(Favorite::getProduct), FAVORITES_SORT);
+    }
+
+    /**
+     * Which of the given products (e.g. one listing page) the user has favorited,
+     * answered from the user's cached favorite id set
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Set<Long> getFavoritedIds(Long userId, Collection<Long> productIds) {
+        Set<Long> favorites = favoriteIdCache.favoriteIds(userId);
+        Set<Long> favorited = new HashSet<>();
+        for (Long productId : productIds) {
+            if (favorites.contains(productId)) {
+                favorited.add(productId);
+            }
+        }
+        return favorited;
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public boolean isFavorited(Long userId, Long productId) {
+        return favoriteIdCache.favoriteIds(userId).contains(productId);
+    }
+}
@@ -0,0 +1,249 @@
+package com.secondhand.store.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * HyperLogLog distinct counter with 2^14 registers (about 0.8% standard error).
+ * <p>
+ * Small sketches stay sparse, as a sorted list of (register, rank) pairs, and
+ * serialize to a few bytes per distinct value; past SPARSE_LIMIT pairs they switch
+ * to the dense form of 16384 six-bit registers (12 KB). Merging takes the maximum of
+ * each register, so it is commutative and idempotent: merging the same sketch twice,
+ * or sketches from several nodes in any order, gives the same result.
+ * Not thread-safe.
+ */
+public final class HyperLogLog {
+
+    static final int PRECISION = 14;
+    static final int REGISTERS = 1 << PRECISION;
+
+    // Sparse pairs beyond which the dense form is smaller and faster
+    private static final int SPARSE_LIMIT = 3072;
+
+    private static final byte FORMAT_SPARSE = 1;
+    private static final byte FORMAT_DENSE = 2;
+
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    // Sparse form: sorted, distinct register indexes with their rank in the low 6 bits
+    private int[] sparse = new int[8];
+    private int sparseSize = 0;
+
+    // Dense form, null while sparse
+    private byte[] registers;
+
+    // ============ UPDATING ============
+
+    public void offer(String value) {
+        offerHash(hash(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public void offerHash(long hash) {
+        int index = (int) (hash >>> (64 - PRECISION));
+        // Rank: position of the first 1 bit in the remaining 50 bits (51 when all zero)
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << PRECISION), 64 - PRECISION) + 1;
+        set(index, rank);
+    }
+
+    /**
+     * Folds another sketch into this one
+     */
+    public void merge(HyperLogLog other) {
+        if (other.registers != null) {
+            toDense();
+            for (int i = 0; i < REGISTERS; i++) {
+                if (other.registers[i] > registers[i]) {
+                    registers[i] = other.registers[i];
+                }
+            }
+        } else {
+            for (int i = 0; i < other.sparseSize; i++) {
+                set(other.sparse[i] >>> 6, other.sparse[i] & 0x3F);
+            }
+        }
+    }
+
+    // ============ ESTIMATING ============
+
+    public long cardinality() {
+        double sum = 0;
+        int zeros = 0;
+        if (registers != null) {
+            for (byte register : registers) {
+                sum += 1.0 / (1L << register);
+                if (register == 0) {
+                    zeros++;
+                }
+            }
+        } else {
+            zeros = REGISTERS - sparseSize;
+            sum = zeros;
+            for (int i = 0; i < sparseSize; i++) {
+                sum += 1.0 / (1L << (sparse[i] & 0x3F));
+            }
+        }
+
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            // Small range: linear counting on the empty registers is far more accurate
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public boolean isEmpty() {
+        return registers == null && sparseSize == 0;
+    }
+
+    // ============ SERIALIZATION ============
+
+    /**
+     * Sparse: format, precision, varint pair count, varint deltas of the pairs.
+     * Dense: format, precision, registers packed 6 bits each.
+     */
+    public byte[] toBytes() {
+        if (registers == null) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(4 + sparseSize * 3);
+            out.write(FORMAT_SPARSE);
+            out.write(PRECISION);
+            writeVarint(out, sparseSize);
+            int previous = 0;
+            for (int i = 0; i < sparseSize; i++) {
+                writeVarint(out, sparse[i] - previous);
+                previous = sparse[i];
+            }
+            return out.toByteArray();
+        }
+
+        byte[] bytes = new byte[2 + REGISTERS * 6 / 8];
+        bytes[0] = FORMAT_DENSE;
+        bytes[1] = PRECISION;
+        for (int i = 0; i < REGISTERS; i++) {
+            int bit = i * 6;
+            int at = 2 + bit / 8;
+            int shift = bit % 8;
+            int value = registers[i] << shift;
+            bytes[at] |= (byte) value;
+            if (shift > 2) {
+                bytes[at + 1] |= (byte) (value >>> 8);
+            }
+        }
+        return bytes;
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length < 2 || bytes[1] != PRECISION) {
+            throw new IllegalArgumentException("Not a HyperLogLog sketch with precision " + PRECISION);
+        }
+        HyperLogLog sketch = new HyperLogLog();
+        if (bytes[0] == FORMAT_SPARSE) {
+            int[] position = {2};
+            int size = readVarint(bytes, position);
+            sketch.sparse = new int[Math.max(size, 8)];
+            int value = 0;
+            for (int i = 0; i < size; i++) {
+                value += readVarint(bytes, position);
+                sketch.sparse[i] = value;
+            }
+            sketch.sparseSize = size;
+        } else if (bytes[0] == FORMAT_DENSE) {
+            sketch.registers = new byte[REGISTERS];
+            for (int i = 0; i < REGISTERS; i++) {
+                int bit = i * 6;
+                int at = 2 + bit / 8;
+                int shift = bit % 8;
+                int value = (bytes[at] & 0xFF) >>> shift;
+                if (shift > 2) {
+                    value |= (bytes[at + 1] & 0xFF) << (8 - shift);
+                }
+                sketch.registers[i] = (byte) (value & 0x3F);
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown HyperLogLog format " + bytes[0]);
+        }
+        return sketch;
+    }
+
+    // ============ INTERNALS ============
+
+    private void set(int index, int rank) {
+        if (registers != null) {
+            if (rank > registers[index]) {
+                registers[index] = (byte) rank;
+            }
+            return;
+        }
+
+        // Ranks are >= 1, so index << 6 itself is never stored and the search
+        // always lands on the register's entry, if it has one
+        int at = -Arrays.binarySearch(sparse, 0, sparseSize, index << 6) - 1;
+        if (at < sparseSize && sparse[at] >>> 6 == index) {
+            sparse[at] = Math.max(sparse[at], index << 6 | rank);
+            return;
+        }
+
+        if (sparseSize == SPARSE_LIMIT) {
+            toDense();
+            set(index, rank);
+            return;
+        }
+        if (sparseSize == sparse.length) {
+            sparse = Arrays.copyOf(sparse, Math.min(sparse.length * 2, SPARSE_LIMIT));
+        }
+        System.arraycopy(sparse, at, sparse, at + 1, sparseSize - at);
+        sparse[at] = index << 6 | rank;
+        sparseSize++;
+    }
+
+    private void toDense() {
+        if (registers != null) {
+            return;
+        }
+        registers = new byte[REGISTERS];
+        for (int i = 0; i < sparseSize; i++) {
+            registers[sparse[i] >>> 6] = (byte) (sparse[i] & 0x3F);
+        }
+        sparse = null;
+        sparseSize = 0;
+    }
+
+    /**
+     * FNV-1a over the bytes, finished with the MurmurHash3 64-bit mixer so that
+     * the top bits (the register index) are well spread
+     */
+    static long hash(byte[] bytes) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h ^= b & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(byte[] bytes, int[] position) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bytes[position[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
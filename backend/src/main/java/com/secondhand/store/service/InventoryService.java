@@ -0,0 +1,314 @@
+package com.secondhand.store.service;
+
+import com.secondhand.store.entity.InventoryHold;
+import com.secondhand.store.entity.Product;
+import com.secondhand.store.entity.User;
+import com.secondhand.store.repository.InventoryHoldRepository;
+import com.secondhand.store.repository.ProductRepository;
+import com.secondhand.store.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Oversell-safe stock for Product.quantity, without locks beyond the product rows.
+ * <p>
+ * Units are taken with one conditional UPDATE (quantity = quantity - n WHERE
+ * quantity >= n), so concurrent buyers of the same listing queue on its row only
+ * for that statement's transaction and the quantity can never go negative.
+ * While a buyer checks out, the units sit in an InventoryHold that expires after
+ * store.inventory.hold-minutes; a scheduled job gives expired holds back to stock.
+ * When an order takes the last unit and nobody holds any, the listing is marked sold.
+ */
+@Service
+// Checked exceptions must roll back too, or units taken before a failing line would stay taken
+@Transactional(rollbackFor = Exception.class)
+public class InventoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryService.class);
+
+    private static final int RELEASE_BATCH = 1000;
+
+    // Expired holds go back to stock in batches; SKIP LOCKED lets several nodes
+    // run the job at once and never waits on a checkout that is using a hold
+    private static final String RELEASE_EXPIRED_SQL = "WITH expired AS (" +
+            "DELETE FROM inventory_holds WHERE id IN (SELECT id FROM inventory_holds WHERE expires_at <= now() " +
+            "ORDER BY expires_at LIMIT ? FOR UPDATE SKIP LOCKED) RETURNING product_id, quantity), " +
+            "restored AS (UPDATE products p SET quantity = p.quantity + r.quantity, version = p.version + 1 " +
+            "FROM (SELECT product_id, SUM(quantity) AS quantity FROM expired GROUP BY product_id) r " +
+            "WHERE p.id = r.product_id RETURNING p.id) " +
+            "SELECT COUNT(*) FROM expired";
+    private static final String RELEASE_USER_SQL = "WITH released AS (" +
+            "DELETE FROM inventory_holds WHERE user_id = ? RETURNING product_id, quantity) " +
+            "UPDATE products p SET quantity = p.quantity + r.quantity, version = p.version + 1 " +
+            "FROM (SELECT product_id, SUM(quantity) AS quantity FROM released GROUP BY product_id) r " +
+            "WHERE p.id = r.product_id";
+    private static final String RELEASE_HOLD_SQL = "WITH released AS (" +
+            "DELETE FROM inventory_holds WHERE id = ? AND user_id = ? RETURNING product_id, quantity) " +
+            "UPDATE products p SET quantity = p.quantity + r.quantity, version = p.version + 1 " +
+            "FROM released r WHERE p.id = r.product_id";
+    // Live holds only: an expired one may already be on its way back to stock
+    private static final String TAKE_HOLDS_SQL = "DELETE FROM inventory_holds WHERE user_id = ? AND expires_at > now() " +
+            "RETURNING product_id, quantity";
+    // Several products at once: their rows are locked in id order first, so two
+    // overlapping carts can't deadlock, then changed in one statement each way
+    private static final String LOCK_PRODUCTS_SQL = "SELECT id FROM products WHERE id = ANY (?) ORDER BY id FOR UPDATE";
+    private static final String TAKE_ALL_SQL = "UPDATE products p SET quantity = p.quantity - d.quantity, " +
+            "version = p.version + 1 FROM unnest(?::bigint[], ?::int[]) AS d(id, quantity) " +
+            "WHERE p.id = d.id AND p.quantity >= d.quantity AND p.is_available = true AND p.is_sold = false " +
+            "RETURNING p.id";
+    private static final String RESTORE_ALL_SQL = "UPDATE products p SET quantity = p.quantity + d.quantity, " +
+            "version = p.version + 1 FROM unnest(?::bigint[], ?::int[]) AS d(id, quantity) WHERE p.id = d.id";
+    private static final String STOCK_SQL = "SELECT name, quantity, is_available, is_sold FROM products WHERE id = ?";
+    private static final String MARK_SOLD_OUT_SQL = "UPDATE products p SET is_sold = true, is_available = false, " +
+            "sold_at = now(), version = p.version + 1 WHERE p.id = ANY (?) AND p.quantity = 0 AND p.is_sold = false " +
+            "AND NOT EXISTS (SELECT 1 FROM inventory_holds h WHERE h.product_id = p.id) RETURNING p.id";
+
+    // Units of cancelled orders go back; the rows are locked in id order first, like a checkout's
+    private static final String LOCK_ORDERED_PRODUCTS_SQL = "SELECT id, is_sold FROM products WHERE id IN " +
+            "(SELECT product_id FROM order_items WHERE order_id = ANY (?)) ORDER BY id FOR UPDATE";
+    private static final String RETURN_UNITS_SQL = "UPDATE products p SET quantity = p.quantity + r.quantity, " +
+            "is_available = p.is_available OR p.is_sold, is_sold = false, sold_at = NULL, version = p.version + 1 " +
+            "FROM (SELECT product_id, SUM(quantity) AS quantity FROM order_items WHERE order_id = ANY (?) " +
+            "GROUP BY product_id) r WHERE p.id = r.product_id";
+
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final InventoryHoldRepository inventoryHoldRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration holdDuration;
+
+    public InventoryService(ProductRepository productRepository,
+                            UserRepository userRepository,
+                            InventoryHoldRepository inventoryHoldRepository,
+                            JdbcTemplate jdbcTemplate,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${store.inventory.hold-minutes:15}") long holdMinutes) {
+        this.productRepository = productRepository;
+        this.userRepository = userRepository;
+        this.inventoryHoldRepository = inventoryHoldRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.holdDuration = Duration.ofMinutes(holdMinutes);
+    }
+
+    // ============ HOLDS ============
+
+    /**
+     * Sets quantity units aside for the user until the hold expires
+     */
+    public InventoryHold reserve(Long productId, Long userId, int quantity) throws Exception {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new Exception("User not found with ID: " + userId));
+        take(productId, quantity);
+        Product product = productRepository.getReferenceById(productId);
+        return inventoryHoldRepository.save(new InventoryHold(product, user, quantity, LocalDateTime.now().plus(holdDuration)));
+    }
+
+    /**
+     * Holds for several products at once (product id to quantity), all or none
+     */
+    public List<InventoryHold> reserveAll(Long userId, SortedMap<Long, Integer> quantities) throws Exception {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new Exception("User not found with ID: " + userId));
+        lock(quantities.keySet());
+        takeAll(quantities);
+
+        LocalDateTime expiresAt = LocalDateTime.now().plus(holdDuration);
+        List<InventoryHold> holds = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            holds.add(new InventoryHold(productRepository.getReferenceById(entry.getKey()), user, entry.getValue(), expiresAt));
+        }
+        return inventoryHoldRepository.saveAll(holds);
+    }
+
+    /**
+     * Gives a hold's units back; false when it was already used, released or expired
+     */
+    public boolean release(Long holdId, Long userId) {
+        return jdbcTemplate.update(RELEASE_HOLD_SQL, holdId, userId) > 0;
+    }
+
+    /**
+     * Gives back everything the user holds
+     */
+    public void releaseAll(Long userId) {
+        jdbcTemplate.update(RELEASE_USER_SQL, userId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<InventoryHold> getActiveHolds(Long userId) {
+        return inventoryHoldRepository.findByUserIdAndExpiresAtAfterOrderByExpiresAt(userId, LocalDateTime.now());
+    }
+
+    // ============ PURCHASES ============
+
+    /**
+     * Takes the units of an order: out of the buyer's live holds where they cover
+     * it, the rest straight from stock. Held units the order doesn't need go back.
+     * Returns the ids of the listings this sold out, which are now marked sold.
+     * Must run in the transaction that writes the order.
+     */
+    @Transactional(propagation = Propagation.MANDATORY, rollbackFor = Exception.class)
+    public List<Long> commitPurchase(Long userId, SortedMap<Long, Integer> quantities) throws Exception {
+        Map<Long, Integer> held = new HashMap<>();
+        jdbcTemplate.query(TAKE_HOLDS_SQL, rs -> {
+            held.merge(rs.getLong("product_id"), rs.getInt("quantity"), Integer::sum);
+        }, userId);
+
+        SortedMap<Long, Integer> missing = new TreeMap<>();
+        SortedMap<Long, Integer> unused = new TreeMap<>(held);
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            int shortfall = entry.getValue() - Optional.ofNullable(unused.remove(entry.getKey())).orElse(0);
+            if (shortfall > 0) {
+                missing.put(entry.getKey(), shortfall);
+            } else if (shortfall < 0) {
+                unused.put(entry.getKey(), -shortfall);
+            }
+        }
+        if (!missing.isEmpty() || !unused.isEmpty()) {
+            SortedSet<Long> touched = new TreeSet<>(missing.keySet());
+            touched.addAll(unused.keySet());
+            lock(touched);
+            takeAll(missing);
+            restoreAll(unused);
+        }
+
+        Long[] productIds = quantities.keySet().toArray(Long[]::new);
+        return jdbcTemplate.queryForList(MARK_SOLD_OUT_SQL, Long.class, (Object) productIds);
+    }
+
+    /**
+     * Gives the units of cancelled orders back to their listings, and reopens the
+     * listings that were sold out. Returns the ids of the reopened listings.
+     * Must run in the transaction that cancels the orders, and only once per order.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Long> returnUnits(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+        Long[] ids = orderIds.toArray(Long[]::new);
+        List<Long> reopened = new ArrayList<>();
+        jdbcTemplate.query(LOCK_ORDERED_PRODUCTS_SQL, rs -> {
+            if (rs.getBoolean("is_sold")) {
+                reopened.add(rs.getLong("id"));
+            }
+        }, (Object) ids);
+        jdbcTemplate.update(RETURN_UNITS_SQL, (Object) ids);
+        return reopened;
+    }
+
+    // ============ EXPIRY ============
+
+    @Scheduled(fixedDelayString = "${store.inventory.release-interval-ms:30000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void scheduledRelease() {
+        try {
+            int released = releaseExpired();
+            if (released > 0) {
+                log.debug("Released {} expired inventory holds", released);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Releasing expired inventory holds failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Gives every expired hold back to stock, a batch per transaction, and returns how many there were
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int releaseExpired() {
+        int released = 0;
+        int batch;
+        do {
+            Integer count = transactionTemplate.execute(status ->
+                    jdbcTemplate.queryForObject(RELEASE_EXPIRED_SQL, Integer.class, RELEASE_BATCH));
+            batch = count != null ? count : 0;
+            released += batch;
+        } while (batch == RELEASE_BATCH);
+        return released;
+    }
+
+    // ============ HELPERS ============
+
+    private void take(Long productId, int quantity) throws Exception {
+        if (quantity < 1) {
+            throw new Exception("Quantity must be at least 1");
+        }
+        if (productRepository.reserveQuantity(productId, quantity) == 0) {
+            throw unavailable(productId);
+        }
+    }
+
+    private void takeAll(SortedMap<Long, Integer> quantities) throws Exception {
+        if (quantities.values().stream().anyMatch(quantity -> quantity < 1)) {
+            throw new Exception("Quantity must be at least 1");
+        }
+        if (quantities.isEmpty()) {
+            return;
+        }
+        List<Long> taken = jdbcTemplate.queryForList(TAKE_ALL_SQL, Long.class, asArrays(quantities));
+        if (taken.size() < quantities.size()) {
+            for (Long productId : quantities.keySet()) {
+                if (!taken.contains(productId)) {
+                    throw unavailable(productId);
+                }
+            }
+        }
+    }
+
+    private void lock(Set<Long> productIds) {
+        if (productIds.size() > 1) {
+            jdbcTemplate.queryForList(LOCK_PRODUCTS_SQL, Long.class, (Object) productIds.toArray(Long[]::new));
+        }
+    }
+
+    private void restoreAll(SortedMap<Long, Integer> quantities) {
+        if (!quantities.isEmpty()) {
+            jdbcTemplate.update(RESTORE_ALL_SQL, asArrays(quantities));
+        }
+    }
+
+    /**
+     * Product ids and quantities as the two parallel arrays the unnest statements take
+     */
+    private static Object[] asArrays(SortedMap<Long, Integer> quantities) {
+        return new Object[]{quantities.keySet().toArray(Long[]::new), quantities.values().toArray(Integer[]::new)};
+    }
+
+    /**
+     * Why the units couldn't be taken, read from the row as it is now
+     */
+    private Exception unavailable(Long productId) {
+        List<Exception> reasons = jdbcTemplate.query(STOCK_SQL, (rs, row) -> {
+            String name = rs.getString("name");
+            if (!rs.getBoolean("is_available") || rs.getBoolean("is_sold")) {
+                return new Exception("Product is no longer available: " + name);
+            }
+            return new Exception("Only " + rs.getInt("quantity") + " left of " + name);
+        }, productId);
+        return reasons.isEmpty() ? new Exception("Product not found with ID: " + productId) : reasons.get(0);
+    }
+}
@@ -0,0 +1,127 @@
+package com.secondhand.store.service;
+
+import com.secondhand.store.dto.CursorPage;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Opaque continuation token for keyset pagination: the sort order plus the
+ * key values of the last row returned, serialized and base64url encoded.
+ */
+record KeysetCursor(Sort sort, KeysetScrollPosition position) {
+
+    private static final byte VERSION = 1;
+
+    /**
+     * The window's content, with a cursor positioned after its last row when there is more
+     */
+    static <T> CursorPage<T> toPage(Window<T> window, Sort sort) {
+        String nextCursor = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            KeysetScrollPosition last = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+            nextCursor = new KeysetCursor(sort, last).encode();
+        }
+        return new CursorPage<>(window.getContent(), nextCursor, nextCursor != null);
+    }
+
+    String encode() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(VERSION);
+
+            out.writeByte(sort.toList().size());
+            for (Sort.Order order : sort) {
+                out.writeUTF(order.getProperty());
+                out.writeBoolean(order.isAscending());
+            }
+
+            Map<String, Object> keys = position.getKeys();
+            out.writeByte(keys.size());
+            for (Map.Entry<String, Object> key : keys.entrySet()) {
+                out.writeUTF(key.getKey());
+                writeValue(out, key.getValue());
+            }
+
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode cursor", e);
+        }
+    }
+
+    static KeysetCursor decode(String token) throws Exception {
+        try {
+            DataInputStream in = new DataInputStream(
+                    new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)));
+            if (in.readByte() != VERSION) {
+                throw new Exception("Unsupported cursor version");
+            }
+
+            Sort sort = Sort.unsorted();
+            int orderCount = in.readByte();
+            for (int i = 0; i < orderCount; i++) {
+                String property = in.readUTF();
+                Sort.Direction direction = in.readBoolean() ? Sort.Direction.ASC : Sort.Direction.DESC;
+                sort = sort.and(Sort.by(direction, property));
+            }
+
+            Map<String, Object> keys = new LinkedHashMap<>();
+            int keyCount = in.readByte();
+            for (int i = 0; i < keyCount; i++) {
+                keys.put(in.readUTF(), readValue(in));
+            }
+
+            return new KeysetCursor(sort, ScrollPosition.forward(keys));
+        } catch (IOException | RuntimeException e) {
+            throw new Exception("Invalid cursor");
+        }
+    }
+
+    // Keyset values are limited to the types of the sortable columns
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value instanceof Long number) {
+            out.writeByte('L');
+            out.writeLong(number);
+        } else if (value instanceof Integer number) {
+            out.writeByte('I');
+            out.writeInt(number);
+        } else if (value instanceof BigDecimal decimal) {
+            out.writeByte('D');
+            out.writeUTF(decimal.toPlainString());
+        } else if (value instanceof LocalDateTime timestamp) {
+            out.writeByte('T');
+            out.writeUTF(timestamp.toString());
+        } else if (value instanceof String text) {
+            out.writeByte('S');
+            out.writeUTF(text);
+        } else {
+            throw new IllegalArgumentException("Unsupported keyset value: " + value);
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case 'L' -> in.readLong();
+            case 'I' -> in.readInt();
+            case 'D' -> new BigDecimal(in.readUTF());
+            case 'T' -> LocalDateTime.parse(in.readUTF());
+            case 'S' -> in.readUTF();
+            default -> throw new IOException("Unknown keyset value type: " + type);
+        };
+    }
+}
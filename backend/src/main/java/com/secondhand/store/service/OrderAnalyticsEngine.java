@@ -0,0 +1,514 @@
+package com.secondhand.store.service;
+
+import com.secondhand.store.dto.AnalyticsRow;
+import com.secondhand.store.dto.AnalyticsSnapshotInfo;
+import com.secondhand.store.dto.OrderAnalyticsFilter;
+import com.secondhand.store.entity.Order;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongFunction;
+
+/**
+ * Reporting over orders and order items without touching the OLTP tables.
+ * <p>
+ * Every few minutes all orders and items are read once, in one repeatable-read
+ * transaction, into a column-oriented snapshot of primitive arrays: order dates as
+ * epoch days, amounts as long cents, statuses as enum ordinals and cities as ids
+ * into a dictionary. Filter and group-by queries then scan those arrays in
+ * parallel on a fork-join pool, each leaf aggregating into its own primitive hash
+ * table, and the partial tables are merged on the way up.
+ * <p>
+ * Results are as old as the snapshot (see info()).
+ */
+@Component
+public class OrderAnalyticsEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderAnalyticsEngine.class);
+
+    // Rows scanned by one fork-join leaf
+    private static final int LEAF_ROWS = 1 << 15;
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private static final Order.OrderStatus[] ORDER_STATUSES = Order.OrderStatus.values();
+    private static final Order.PaymentStatus[] PAYMENT_STATUSES = Order.PaymentStatus.values();
+
+    private static final String ORDERS_SQL = "SELECT id, created_at, total_amount, order_status, payment_status, shipping_city " +
+            "FROM orders ORDER BY id";
+    private static final String ITEMS_SQL = "SELECT oi.order_id, oi.product_id, oi.seller_id, p.category_id, oi.quantity, oi.price_at_order " +
+            "FROM order_items oi LEFT JOIN products p ON p.id = oi.product_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTransaction;
+    private final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private volatile Snapshot snapshot;
+
+    public OrderAnalyticsEngine(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        // Orders and items are read as of the same moment
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    // ============ MAINTENANCE ============
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void refresh() {
+        long started = System.nanoTime();
+        Snapshot loaded = snapshotTransaction.execute(status -> load());
+        loaded.loadTime = Duration.ofNanos(System.nanoTime() - started);
+        snapshot = loaded;
+    }
+
+    @Scheduled(fixedDelayString = "${store.analytics.refresh-interval-ms:300000}",
+            initialDelayString = "${store.analytics.refresh-interval-ms:300000}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            // Keep serving the previous snapshot
+            log.warn("Refreshing the order analytics snapshot failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    public AnalyticsSnapshotInfo info() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return new AnalyticsSnapshotInfo(null, 0, 0, 0, Duration.ZERO);
+        }
+        return new AnalyticsSnapshotInfo(current.takenAt, current.orderCount, current.itemCount,
+                current.cities.length - 1, current.loadTime);
+    }
+
+    // ============ QUERYING ============
+
+    /**
+     * Number of orders and sum of total_amount per group
+     */
+    public List<AnalyticsRow> groupOrders(OrderAnalyticsFilter filter, OrderGroup groupBy) {
+        Snapshot s = snapshot;
+        if (s == null) {
+            return List.of();
+        }
+        Filter match = Filter.of(filter, s);
+        if (match == null) {
+            return List.of();
+        }
+
+        int[] days = s.orderDays;
+        long[] amounts = s.amountCents;
+        int[] keys = switch (groupBy) {
+            case DAY -> s.orderDays;
+            case MONTH -> s.orderMonths;
+            case CITY -> s.cityIds;
+            case STATUS, PAYMENT_STATUS -> null;
+        };
+        byte[] byteKeys = groupBy == OrderGroup.STATUS ? s.statuses : s.paymentStatuses;
+
+        GroupTotals totals = pool.invoke(new Scan(0, s.orderCount, (row, into) -> {
+            int day = days[row];
+            if (day >= match.fromDay && day <= match.toDay && match.order(s, row)) {
+                into.add(keys != null ? keys[row] : byteKeys[row], 1, amounts[row]);
+            }
+        }));
+        return toRows(totals, groupBy.timeline, key -> label(s, groupBy, key));
+    }
+
+    /**
+     * Units sold and revenue (price at order times quantity) per group
+     */
+    public List<AnalyticsRow> groupItems(OrderAnalyticsFilter filter, ItemGroup groupBy) {
+        Snapshot s = snapshot;
+        if (s == null) {
+            return List.of();
+        }
+        Filter match = Filter.of(filter, s);
+        if (match == null) {
+            return List.of();
+        }
+
+        int[] orderRows = s.itemOrderRows;
+        int[] quantities = s.quantities;
+        long[] revenues = s.revenueCents;
+        long[] categories = s.categoryIds;
+        long[] sellers = s.sellerIds;
+        long[] keys = switch (groupBy) {
+            case CATEGORY -> s.categoryIds;
+            case SELLER -> s.sellerIds;
+            case PRODUCT -> s.productIds;
+            case DAY, MONTH -> null;
+        };
+        int[] orderKeys = groupBy == ItemGroup.DAY ? s.orderDays : s.orderMonths;
+
+        GroupTotals totals = pool.invoke(new Scan(0, s.itemCount, (row, into) -> {
+            int order = orderRows[row];
+            int day = s.orderDays[order];
+            if (day >= match.fromDay && day <= match.toDay
+                    && (match.categoryId == 0 || categories[row] == match.categoryId)
+                    && (match.sellerId == 0 || sellers[row] == match.sellerId)
+                    && match.order(s, order)) {
+                into.add(keys != null ? keys[row] : orderKeys[order], quantities[row], revenues[row]);
+            }
+        }));
+        return toRows(totals, groupBy.timeline, key -> switch (groupBy) {
+            case DAY -> LocalDate.ofEpochDay(key).toString();
+            case MONTH -> monthOf(key).toString();
+            case CATEGORY, SELLER, PRODUCT -> key == 0 ? "none" : Long.toString(key);
+        });
+    }
+
+    public enum OrderGroup {
+        DAY(true), MONTH(true), STATUS(false), PAYMENT_STATUS(false), CITY(false);
+
+        private final boolean timeline;
+
+        OrderGroup(boolean timeline) {
+            this.timeline = timeline;
+        }
+    }
+
+    public enum ItemGroup {
+        DAY(true), MONTH(true), CATEGORY(false), SELLER(false), PRODUCT(false);
+
+        private final boolean timeline;
+
+        ItemGroup(boolean timeline) {
+            this.timeline = timeline;
+        }
+    }
+
+    // ============ INTERNALS ============
+
+    /**
+     * Timelines in time order, everything else by amount, largest first
+     */
+    private static List<AnalyticsRow> toRows(GroupTotals totals, boolean timeline, LongFunction<String> label) {
+        List<long[]> groups = new ArrayList<>(totals.size);
+        for (int slot = 0; slot < totals.keys.length; slot++) {
+            if (totals.keys[slot] != GroupTotals.EMPTY) {
+                groups.add(new long[]{totals.keys[slot], totals.counts[slot], totals.sums[slot]});
+            }
+        }
+        groups.sort(timeline
+                ? Comparator.comparingLong(group -> group[0])
+                : Comparator.<long[]>comparingLong(group -> group[2]).reversed().thenComparingLong(group -> group[0]));
+
+        List<AnalyticsRow> rows = new ArrayList<>(groups.size());
+        for (long[] group : groups) {
+            rows.add(new AnalyticsRow(label.apply(group[0]), group[1], BigDecimal.valueOf(group[2], 2)));
+        }
+        return rows;
+    }
+
+    private static String label(Snapshot s, OrderGroup groupBy, long key) {
+        return switch (groupBy) {
+            case DAY -> LocalDate.ofEpochDay(key).toString();
+            case MONTH -> monthOf(key).toString();
+            case STATUS -> ORDER_STATUSES[(int) key].name();
+            case PAYMENT_STATUS -> PAYMENT_STATUSES[(int) key].name();
+            case CITY -> key == 0 ? "none" : s.cities[(int) key];
+        };
+    }
+
+    private static YearMonth monthOf(long key) {
+        return YearMonth.of((int) (key / 12), (int) (key % 12) + 1);
+    }
+
+    private Snapshot load() {
+        Snapshot s = new Snapshot();
+        Map<String, Integer> cityIndex = new HashMap<>();
+        List<String> cities = new ArrayList<>();
+        cities.add(null); // City id 0: no city
+
+        jdbcTemplate.query(ORDERS_SQL, rs -> {
+            int row = s.addOrder();
+            s.orderIds[row] = rs.getLong(1);
+            LocalDate day = rs.getTimestamp(2).toLocalDateTime().toLocalDate();
+            s.orderDays[row] = (int) day.toEpochDay();
+            s.orderMonths[row] = day.getYear() * 12 + day.getMonthValue() - 1;
+            s.amountCents[row] = cents(rs.getBigDecimal(3));
+            s.statuses[row] = (byte) Order.OrderStatus.valueOf(rs.getString(4)).ordinal();
+            String paymentStatus = rs.getString(5);
+            s.paymentStatuses[row] = (byte) (paymentStatus != null
+                    ? Order.PaymentStatus.valueOf(paymentStatus)
+                    : Order.PaymentStatus.PENDING).ordinal();
+            String city = rs.getString(6);
+            if (city != null && !city.isBlank()) {
+                s.cityIds[row] = cityIndex.computeIfAbsent(normalize(city), key -> {
+                    cities.add(city.trim());
+                    return cities.size() - 1;
+                });
+            }
+        });
+
+        jdbcTemplate.query(ITEMS_SQL, rs -> {
+            int orderRow = Arrays.binarySearch(s.orderIds, 0, s.orderCount, rs.getLong(1));
+            if (orderRow < 0) {
+                return; // Order created after the orders were read
+            }
+            int row = s.addItem();
+            s.itemOrderRows[row] = orderRow;
+            s.productIds[row] = rs.getLong(2);
+            s.sellerIds[row] = rs.getLong(3);
+            s.categoryIds[row] = rs.getLong(4);
+            s.quantities[row] = rs.getInt(5);
+            s.revenueCents[row] = cents(rs.getBigDecimal(6)) * s.quantities[row];
+        });
+
+        s.cities = cities.toArray(String[]::new);
+        s.cityIndex = cityIndex;
+        s.takenAt = Instant.now();
+        return s;
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount != null ? amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact() : 0L;
+    }
+
+    private static String normalize(String city) {
+        return city.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A query's filters compiled against one snapshot: day range, status bitmasks and ids.
+     * 0 means "any" for the city, category and seller.
+     */
+    private record Filter(int fromDay, int toDay, int statusMask, int paymentMask,
+                          int cityId, long categoryId, long sellerId) {
+
+        /**
+         * Null when the filter can't match anything in the snapshot (e.g. an unknown city)
+         */
+        static Filter of(OrderAnalyticsFilter filter, Snapshot s) {
+            int cityId = 0;
+            if (filter.city() != null && !filter.city().isBlank()) {
+                Integer id = s.cityIndex.get(normalize(filter.city()));
+                if (id == null) {
+                    return null;
+                }
+                cityId = id;
+            }
+            return new Filter(
+                    filter.from() != null ? (int) filter.from().toEpochDay() : Integer.MIN_VALUE,
+                    filter.to() != null ? (int) filter.to().toEpochDay() : Integer.MAX_VALUE,
+                    mask(filter.statuses()),
+                    mask(filter.paymentStatuses()),
+                    cityId,
+                    filter.categoryId() != null ? filter.categoryId() : 0,
+                    filter.sellerId() != null ? filter.sellerId() : 0);
+        }
+
+        private static int mask(Set<? extends Enum<?>> values) {
+            if (values == null || values.isEmpty()) {
+                return -1;
+            }
+            int mask = 0;
+            for (Enum<?> value : values) {
+                mask |= 1 << value.ordinal();
+            }
+            return mask;
+        }
+
+        boolean order(Snapshot s, int row) {
+            return (statusMask >>> s.statuses[row] & 1) != 0
+                    && (paymentMask >>> s.paymentStatuses[row] & 1) != 0
+                    && (cityId == 0 || s.cityIds[row] == cityId);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowAggregator {
+        void accept(int row, GroupTotals into);
+    }
+
+    /**
+     * Aggregates rows [from, to), splitting in halves down to LEAF_ROWS
+     */
+    private static final class Scan extends RecursiveTask<GroupTotals> {
+        private final int from;
+        private final int to;
+        private final RowAggregator aggregator;
+
+        Scan(int from, int to, RowAggregator aggregator) {
+            this.from = from;
+            this.to = to;
+            this.aggregator = aggregator;
+        }
+
+        @Override
+        protected GroupTotals compute() {
+            if (to - from <= LEAF_ROWS) {
+                GroupTotals totals = new GroupTotals();
+                for (int row = from; row < to; row++) {
+                    aggregator.accept(row, totals);
+                }
+                return totals;
+            }
+            int mid = (from + to) >>> 1;
+            Scan left = new Scan(from, mid, aggregator);
+            left.fork();
+            GroupTotals right = new Scan(mid, to, aggregator).compute();
+            return left.join().mergeFrom(right);
+        }
+    }
+
+    /**
+     * Open-addressing hash table of group key -> (count, sum), all primitive
+     */
+    static final class GroupTotals {
+        static final long EMPTY = Long.MIN_VALUE;
+
+        long[] keys;
+        long[] counts;
+        long[] sums;
+        int size;
+
+        GroupTotals() {
+            allocate(16);
+        }
+
+        void add(long key, long count, long sum) {
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                size++;
+            }
+            counts[slot] += count;
+            sums[slot] += sum;
+            if (size * 2 > keys.length) {
+                grow();
+            }
+        }
+
+        GroupTotals mergeFrom(GroupTotals other) {
+            for (int slot = 0; slot < other.keys.length; slot++) {
+                if (other.keys[slot] != EMPTY) {
+                    add(other.keys[slot], other.counts[slot], other.sums[slot]);
+                }
+            }
+            return this;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            long[] oldCounts = counts;
+            long[] oldSums = sums;
+            allocate(oldKeys.length * 2);
+            size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != EMPTY) {
+                    add(oldKeys[slot], oldCounts[slot], oldSums[slot]);
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            counts = new long[capacity];
+            sums = new long[capacity];
+        }
+
+        private static int slot(long key, int mask) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+        }
+    }
+
+    /**
+     * The columns. Orders are sorted by id; items point at their order's row.
+     * Arrays grow while loading and are never written once published.
+     */
+    private static final class Snapshot {
+        int orderCount;
+        long[] orderIds = new long[1024];
+        int[] orderDays = new int[1024];
+        int[] orderMonths = new int[1024];
+        long[] amountCents = new long[1024];
+        byte[] statuses = new byte[1024];
+        byte[] paymentStatuses = new byte[1024];
+        int[] cityIds = new int[1024];
+
+        int itemCount;
+        int[] itemOrderRows = new int[1024];
+        long[] productIds = new long[1024];
+        long[] sellerIds = new long[1024];
+        long[] categoryIds = new long[1024];
+        int[] quantities = new int[1024];
+        long[] revenueCents = new long[1024];
+
+        String[] cities;
+        Map<String, Integer> cityIndex;
+        Instant takenAt;
+        Duration loadTime;
+
+        int addOrder() {
+            if (orderCount == orderIds.length) {
+                int capacity = orderCount * 2;
+                orderIds = Arrays.copyOf(orderIds, capacity);
+                orderDays = Arrays.copyOf(orderDays, capacity);
+                orderMonths = Arrays.copyOf(orderMonths, capacity);
+                amountCents = Arrays.copyOf(amountCents, capacity);
+                statuses = Arrays.copyOf(statuses, capacity);
+                paymentStatuses = Arrays.copyOf(paymentStatuses, capacity);
+                cityIds = Arrays.copyOf(cityIds, capacity);
+            }
+            return orderCount++;
+        }
+
+        int addItem() {
+            if (itemCount == itemOrderRows.length) {
+                int capacity = itemCount * 2;
+                itemOrderRows = Arrays.copyOf(itemOrderRows, capacity);
+                productIds = Arrays.copyOf(productIds, capacity);
+                sellerIds = Arrays.copyOf(sellerIds, capacity);
+                categoryIds = Arrays.copyOf(categoryIds, capacity);
+                quantities = Arrays.copyOf(quantities, capacity);
+                revenueCents = Arrays.copyOf(revenueCents, capacity);
+            }
+            return itemCount++;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.secondhand.store.service;
+
+import com.secondhand.store.dto.FulfillmentReport;
+import com.secondhand.store.dto.TrackingUpdate;
+import com.secondhand.store.entity.Order;
+import com.secondhand.store.event.ProductChangedEvent;
+import com.secondhand.store.event.ProductSnapshot;
+import com.secondhand.store.repository.OrderRepository;
+import com.secondhand.store.repository.OrderStatusView;
+import com.secondhand.store.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Bulk order status changes, such as a carrier's tracking file or a day's deliveries.
+ * <p>
+ * Rows are read in chunks; each chunk is one transaction that looks up its orders
+ * through a projection (no buyers or items are loaded) and changes them with a
+ * single UPDATE over unnest'ed arrays. The UPDATE only touches an order still in
+ * the status it was read in, so a concurrent change is reported rather than
+ * overwritten. Bad rows never stop the import: each one is reported with its reason.
+ * <p>
+ * What a status change implies elsewhere happens in the same chunk transaction:
+ * delivered orders are added to the sales rollups and refunded ones taken out,
+ * and cancelled orders give their units back to stock.
+ */
+@Service
+@Transactional
+public class OrderFulfillmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderFulfillmentService.class);
+
+    private static final int CHUNK_SIZE = 1000;
+
+    // Re-shipping keeps the first shipped_at, so correcting a tracking number doesn't move it
+    private static final String SHIP_SQL = "UPDATE orders o SET order_status = 'SHIPPED', " +
+            "tracking_number = d.tracking_number, carrier = d.carrier, " +
+            "shipped_at = COALESCE(o.shipped_at, now()), updated_at = now() " +
+            "FROM unnest(?::bigint[], ?::varchar[], ?::varchar[], ?::varchar[]) " +
+            "AS d(id, from_status, tracking_number, carrier) " +
+            "WHERE o.id = d.id AND o.order_status = d.from_status RETURNING o.id";
+    private static final String TRANSITION_SQL = "UPDATE orders o SET order_status = ?, updated_at = now(), " +
+            "delivered_at = CASE WHEN ? THEN now() ELSE o.delivered_at END, " +
+            "cancelled_at = CASE WHEN ? THEN now() ELSE o.cancelled_at END " +
+            "FROM unnest(?::bigint[], ?::varchar[]) AS d(id, from_status) " +
+            "WHERE o.id = d.id AND o.order_status = d.from_status RETURNING o.id";
+
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final SalesRollupService salesRollupService;
+    private final InventoryService inventoryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public OrderFulfillmentService(OrderRepository orderRepository,
+                                   ProductRepository productRepository,
+                                   SalesRollupService salesRollupService,
+                                   InventoryService inventoryService,
+                                   ApplicationEventPublisher eventPublisher,
+                                   JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate) {
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.salesRollupService = salesRollupService;
+        this.inventoryService = inventoryService;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Marks orders shipped with their tracking number and carrier. Uploading the
+     * same file again changes nothing; a different tracking number for a shipped
+     * order replaces the old one.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public FulfillmentReport importTracking(Stream<TrackingUpdate> updates) {
+        return process(updates.map(update -> new Line(0, trim(update.orderNumber()),
+                trim(update.trackingNumber()), trim(update.carrier()))), Order.OrderStatus.SHIPPED);
+    }
+
+    /**
+     * Moves the orders to the target status, e.g. DELIVERED from a delivery confirmation
+     * file. Delivered orders are added to the sales rollups and refunded ones taken out;
+     * cancelled orders give their units back and reopen the listings they sold out.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public FulfillmentReport bulkTransition(Stream<String> orderNumbers, Order.OrderStatus target) throws Exception {
+        if (target == Order.OrderStatus.SHIPPED) {
+            throw new Exception("Shipping needs tracking numbers, use the tracking import");
+        }
+        return process(orderNumbers.map(orderNumber -> new Line(0, trim(orderNumber), null, null)), target);
+    }
+
+    // ============ INTERNALS ============
+
+    private FulfillmentReport process(Stream<Line> lines, Order.OrderStatus target) {
+        Tally tally = new Tally();
+        Map<String, Integer> firstRows = new HashMap<>();
+        List<Line> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        Iterator<Line> iterator = lines.iterator();
+        while (iterator.hasNext()) {
+            Line read = iterator.next();
+            Line line = new Line(++tally.received, read.orderNumber(), read.trackingNumber(), read.carrier());
+            if (line.orderNumber() == null) {
+                tally.fail(line, "Order number is required");
+            } else if (target == Order.OrderStatus.SHIPPED && line.trackingNumber() == null) {
+                tally.fail(line, "Tracking number is required");
+            } else {
+                Integer first = firstRows.putIfAbsent(line.orderNumber(), line.row());
+                if (first != null) {
+                    tally.fail(line, "Duplicate of row " + first);
+                } else {
+                    chunk.add(line);
+                }
+            }
+
+            if (chunk.size() == CHUNK_SIZE || (!iterator.hasNext() && !chunk.isEmpty())) {
+                applyChunk(chunk, target, tally);
+                chunk.clear();
+            }
+        }
+        tally.failures.sort(Comparator.comparingInt(FulfillmentReport.Failure::row));
+        return new FulfillmentReport(tally.received, tally.updated, tally.unchanged, tally.failures);
+    }
+
+    /**
+     * Applies one chunk in its own transaction; the tally only takes its outcome once committed
+     */
+    private void applyChunk(List<Line> chunk, Order.OrderStatus target, Tally tally) {
+        try {
+            Tally outcome = transactionTemplate.execute(status -> apply(chunk, target));
+            tally.add(outcome);
+        } catch (DataAccessException e) {
+            log.warn("Applying {} rows as {} failed: {}", chunk.size(), target, e.getMessage());
+            for (Line line : chunk) {
+                tally.fail(line, "Not applied: " + e.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+
+    private Tally apply(List<Line> chunk, Order.OrderStatus target) {
+        Tally outcome = new Tally();
+        Map<String, OrderStatusView> orders = new HashMap<>();
+        for (OrderStatusView order : orderRepository.findStatusByOrderNumbers(
+                chunk.stream().map(Line::orderNumber).toList())) {
+            orders.put(order.getOrderNumber(), order);
+        }
+
+        List<Change> changes = new ArrayList<>();
+        for (Line line : chunk) {
+            OrderStatusView order = orders.get(line.orderNumber());
+            if (order == null) {
+                outcome.fail(line, "Order not found");
+            } else if (alreadyApplied(order, line, target)) {
+                outcome.unchanged++;
+            } else if (order.getOrderStatus() != target && !order.getOrderStatus().canTransitionTo(target)) {
+                outcome.fail(line, "Cannot change a " + order.getOrderStatus() + " order to " + target);
+            } else {
+                changes.add(new Change(line, order));
+            }
+        }
+        if (changes.isEmpty()) {
+            return outcome;
+        }
+
+        Set<Long> changed = new HashSet<>(execute(changes, target));
+        List<Long> applied = new ArrayList<>();
+        for (Change change : changes) {
+            if (changed.contains(change.order().getId())) {
+                outcome.updated++;
+                applied.add(change.order().getId());
+            } else {
+                outcome.fail(change.line(), "Order status changed during import");
+            }
+        }
+        switch (target) {
+            case DELIVERED -> salesRollupService.recordDelivered(applied);
+            case REFUNDED -> salesRollupService.recordRefunded(applied);
+            case CANCELLED -> publishReopened(inventoryService.returnUnits(applied));
+            default -> {
+            }
+        }
+        return outcome;
+    }
+
+    /**
+     * Lets the read models list the reopened products again once the chunk commits
+     */
+    private void publishReopened(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        for (ProductSnapshot product : productRepository.findSnapshotsByIds(productIds)) {
+            eventPublisher.publishEvent(ProductChangedEvent.reopened(product));
+        }
+    }
+
+    private List<Long> execute(List<Change> changes, Order.OrderStatus target) {
+        Long[] ids = changes.stream().map(change -> change.order().getId()).toArray(Long[]::new);
+        String[] fromStatuses = changes.stream().map(change -> change.order().getOrderStatus().name()).toArray(String[]::new);
+        if (target == Order.OrderStatus.SHIPPED) {
+            String[] trackingNumbers = changes.stream().map(change -> change.line().trackingNumber()).toArray(String[]::new);
+            String[] carriers = changes.stream().map(change -> change.line().carrier()).toArray(String[]::new);
+            return jdbcTemplate.queryForList(SHIP_SQL, Long.class, ids, fromStatuses, trackingNumbers, carriers);
+        }
+        return jdbcTemplate.queryForList(TRANSITION_SQL, Long.class, target.name(),
+                target == Order.OrderStatus.DELIVERED, target == Order.OrderStatus.CANCELLED, ids, fromStatuses);
+    }
+
+    /**
+     * A tracking row is already applied once the order carries that tracking number,
+     * even if it has been delivered since; any other row once the order is in the target status
+     */
+    private static boolean alreadyApplied(OrderStatusView order, Line line, Order.OrderStatus target) {
+        if (target != Order.OrderStatus.SHIPPED) {
+            return order.getOrderStatus() == target;
+        }
+        return (order.getOrderStatus() == Order.OrderStatus.SHIPPED || order.getOrderStatus() == Order.OrderStatus.DELIVERED)
+                && line.trackingNumber().equals(order.getTrackingNumber())
+                && Objects.equals(line.carrier(), order.getCarrier());
+    }
+
+    private static String trim(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    /**
+     * An input row; row is its 1-based position
+     */
+    private record Line(int row, String orderNumber, String trackingNumber, String carrier) {}
+
+    private record Change(Line line, OrderStatusView order) {}
+
+    private static final class Tally {
+        int received;
+        int updated;
+        int unchanged;
+        final List<FulfillmentReport.Failure> failures = new ArrayList<>();
+
+        void fail(Line line, String reason) {
+            failures.add(new FulfillmentReport.Failure(line.row(), line.orderNumber(), reason));
+        }
+
+        void add(Tally other) {
+            updated += other.updated;
+            unchanged += other.unchanged;
+            failures.addAll(other.failures);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.secondhand.store.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unique, time-ordered order numbers without locks or a shared counter.
+ * <p>
+ * An id is 63 bits: milliseconds since 2024-01-01 (41 bits, good until 2093),
+ * the node id (10 bits, so up to 1024 app instances with distinct
+ * store.order-numbers.node-id) and a per-millisecond sequence (12 bits).
+ * The node id has no default: two instances sharing one would hand out the same
+ * numbers, so startup fails until each instance is given its own. The
+ * millisecond and sequence live in one AtomicLong that is advanced by CAS.
+ * When a millisecond's 4096 sequence values run out, or the wall clock steps
+ * back, the generator moves on to the next millisecond instead of waiting, so
+ * ids keep increasing and the clock only runs ahead until load drops again.
+ * <p>
+ * Numbers are "ORD-" plus the id in 13 fixed-width Crockford base32 characters
+ * (no I, L, O or U), so they sort in time order as strings too and new rows land
+ * at the right edge of the order_number index.
+ */
+@Component
+public class OrderNumberGenerator {
+
+    static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    static final String PREFIX = "ORD-";
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int ENCODED_LENGTH = 13;
+
+    private final long nodeBits;
+
+    // (milliseconds since EPOCH_MILLIS) << SEQUENCE_BITS | sequence of the last id handed out
+    private final AtomicLong last = new AtomicLong();
+
+    public OrderNumberGenerator(@Value("${store.order-numbers.node-id:-1}") int nodeId) {
+        if (nodeId < 0) {
+            throw new IllegalArgumentException("store.order-numbers.node-id must be set to an id between 0 and "
+                    + MAX_NODE_ID + " that no other instance uses");
+        }
+        if (nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Order number node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+    }
+
+    /**
+     * A new order number, e.g. ORD-01JB8Z3K40G0Q
+     */
+    public String next() {
+        return encode(nextId());
+    }
+
+    public long nextId() {
+        long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        while (true) {
+            long previous = last.get();
+            // A new millisecond starts at sequence 0; otherwise take the next value,
+            // which carries into the following millisecond when the sequence is full
+            long candidate = now > previous ? now : previous + 1;
+            if (last.compareAndSet(previous, candidate)) {
+                long millis = candidate >>> SEQUENCE_BITS;
+                return millis << (NODE_BITS + SEQUENCE_BITS) | nodeBits | (candidate & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    // ============ ENCODING ============
+
+    public static String encode(long id) {
+        char[] chars = new char[PREFIX.length() + ENCODED_LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * The id behind an order number; lower case and the look-alikes I, L (1) and O (0) are accepted
+     */
+    public static long decode(String orderNumber) {
+        if (orderNumber == null || orderNumber.length() != PREFIX.length() + ENCODED_LENGTH
+                || !orderNumber.regionMatches(true, 0, PREFIX, 0, PREFIX.length())) {
+            throw new IllegalArgumentException("Not an order number: " + orderNumber);
+        }
+        long id = 0;
+        for (int i = PREFIX.length(); i < orderNumber.length(); i++) {
+            int digit = digit(Character.toUpperCase(orderNumber.charAt(i)));
+            if (digit < 0) {
+                throw new IllegalArgumentException("Not an order number: " + orderNumber);
+            }
+            id = id << 5 | digit;
+        }
+        return id;
+    }
+
+    /**
+     * When the id was generated
+     */
+    public static Instant timestampOf(long id) {
+        return Instant.ofEpochMilli((id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS);
+    }
+
+    // ============ INTERNALS ============
+
+    private static int digit(char c) {
+        return switch (c) {
+            case 'I', 'L' -> 1;
+            case 'O' -> 0;
+            case 'U' -> -1;
+            default -> {
+                for (int i = 0; i < ALPHABET.length; i++) {
+                    if (ALPHABET[i] == c) {
+                        yield i;
+                    }
+                }
+                yield -1;
+            }
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package com.secondhand.store.service;
+
+import com.secondhand.store.entity.Order;
+import com.secondhand.store.repository.OrderRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@Transactional
+public class OrderService {
+
+    private final OrderRepository orderRepository;
+    private final SalesRollupService salesRollupService;
+
+    public OrderService(OrderRepository orderRepository, SalesRollupService salesRollupService) {
+        this.orderRepository = orderRepository;
+        this.salesRollupService = salesRollupService;
+    }
+
+    // ============ ORDER STATUS ============
+
+    /**
+     * Marks the order delivered and adds it to the daily sales rollups.
+     * The order row is locked so the same order can't be counted twice.
+     */
+    public Order markAsDelivered(Long orderId) throws Exception {
+        Order order = orderRepository.findByIdForUpdate(orderId)
+                .orElseThrow(() -> new Exception("Order not found with ID: " + orderId));
+
+        if (order.getOrderStatus() == Order.OrderStatus.DELIVERED) {
+            throw new Exception("Order is already delivered: " + orderId);
+        }
+        if (!order.getOrderStatus().canTransitionTo(Order.OrderStatus.DELIVERED)) {
+            throw new Exception("Cannot deliver a " + order.getOrderStatus() + " order: " + orderId);
+        }
+
+        order.markAsDelivered(); // Helper method from entity
+        Order savedOrder = orderRepository.save(order);
+        salesRollupService.recordDelivered(List.of(savedOrder.getId()));
+        return savedOrder;
+    }
+}
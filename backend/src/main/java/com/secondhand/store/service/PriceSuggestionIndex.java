@@ -0,0 +1,287 @@
+package com.secondhand.store.service;
+
+import com.secondhand.store.dto.PriceSuggestion;
+import com.secondhand.store.entity.Product;
+import com.secondhand.store.event.PriceRealizedEvent;
+import com.secondhand.store.event.ProductChangedEvent;
+import com.secondhand.store.event.ProductSnapshot;
+import com.secondhand.store.repository.OrderItemRepository;
+import com.secondhand.store.repository.ProductRepository;
+import com.secondhand.store.repository.RealizedPriceRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Price distributions per category and condition, as t-digests, for suggesting
+ * a price range to sellers. Two sets are kept: asking prices of available
+ * listings and prices actually paid (order items of the last sold-window-days).
+ * Each cell also feeds a category-wide digest (condition null) used when a
+ * condition has too few prices of its own.
+ * <p>
+ * Digests only grow: new listings, price changes and purchases are added as
+ * they happen, but a sold, deleted or repriced listing cannot be taken out.
+ * Both sets are therefore rebuilt from the tables every rebuild-interval-ms
+ * and swapped in whole. A suggestion reads three quantiles off a digest of at
+ * most about a hundred centroids (COMPRESSION), however many prices it has seen.
+ * Events arriving during a rebuild are replayed into the new digests, skipping
+ * those the rebuild already read, since a digest can't subtract them.
+ */
+@Component
+public class PriceSuggestionIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceSuggestionIndex.class);
+
+    private static final double COMPRESSION = 100;
+
+    // Fewer prices than this and the next, broader basis is used instead
+    private static final int MIN_SAMPLES = 10;
+
+    private final ProductRepository productRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final TransactionTemplate snapshotTransaction;
+    private final int soldWindowDays;
+
+    // Events are added under the read lock; a rebuild swaps both sets under the write lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile Map<Cell, TDigest> listed = new ConcurrentHashMap<>();
+    private volatile Map<Cell, TDigest> sold = new ConcurrentHashMap<>();
+    private volatile boolean ready = false;
+
+    // Events since the running rebuild started reading (latest listing per product,
+    // sales per order item), null otherwise
+    private volatile Map<Long, ProductSnapshot> listedDuringReload;
+    private volatile Map<Long, PriceRealizedEvent> soldDuringReload;
+
+    public PriceSuggestionIndex(ProductRepository productRepository,
+                                OrderItemRepository orderItemRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${store.pricing.sold-window-days:180}") int soldWindowDays) {
+        this.productRepository = productRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.soldWindowDays = soldWindowDays;
+    }
+
+    // ============ MAINTENANCE ============
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        Map<Long, ProductSnapshot> listedMeanwhile = new ConcurrentHashMap<>();
+        Map<Long, PriceRealizedEvent> soldMeanwhile = new ConcurrentHashMap<>();
+        listedDuringReload = listedMeanwhile;
+        soldDuringReload = soldMeanwhile;
+        try {
+            snapshotTransaction.executeWithoutResult(status -> reload(listedMeanwhile, soldMeanwhile));
+        } finally {
+            listedDuringReload = null;
+            soldDuringReload = null;
+        }
+        ready = true;
+    }
+
+    @Scheduled(fixedDelayString = "${store.pricing.rebuild-interval-ms:3600000}",
+            initialDelayString = "${store.pricing.rebuild-interval-ms:3600000}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Rebuilding price sketches failed, keeping the current ones: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.type() != ProductChangedEvent.Type.CREATED && event.type() != ProductChangedEvent.Type.UPDATED) {
+            return;
+        }
+        ProductSnapshot product = event.product();
+        ProductSnapshot previous = event.previous();
+        if (!product.available()) {
+            return;
+        }
+        // An edit that leaves price, category and condition alone adds nothing new
+        if (samePrice(previous, product)) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            add(listed, product.categoryId(), product.condition(), product.price(), 1);
+            Map<Long, ProductSnapshot> listedMeanwhile = listedDuringReload;
+            if (listedMeanwhile != null) {
+                listedMeanwhile.put(product.id(), product);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPriceRealized(PriceRealizedEvent event) {
+        lock.readLock().lock();
+        try {
+            add(sold, event.categoryId(), event.condition(), event.price(), Math.max(event.quantity(), 1));
+            Map<Long, PriceRealizedEvent> soldMeanwhile = soldDuringReload;
+            if (soldMeanwhile != null && event.orderItemId() != null) {
+                soldMeanwhile.put(event.orderItemId(), event);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ============ QUERYING ============
+
+    /**
+     * Suggested range for an item of this category and condition, from (in order
+     * of preference) sold prices, listed prices, then the same for any condition.
+     * Empty when the category has no prices at all.
+     */
+    public Optional<PriceSuggestion> suggest(Long categoryId, Product.ProductCondition condition) {
+        Cell exact = new Cell(categoryId, condition);
+        Cell anyCondition = new Cell(categoryId, null);
+        Optional<PriceSuggestion> suggestion = suggestFrom(sold.get(exact), categoryId, condition, PriceSuggestion.Basis.SOLD, MIN_SAMPLES)
+                .or(() -> suggestFrom(listed.get(exact), categoryId, condition, PriceSuggestion.Basis.LISTED, MIN_SAMPLES))
+                .or(() -> suggestFrom(sold.get(anyCondition), categoryId, condition, PriceSuggestion.Basis.SOLD_ANY_CONDITION, MIN_SAMPLES));
+        // Last resort: whatever the category has, however few
+        return suggestion.or(() -> suggestFrom(listed.get(anyCondition), categoryId, condition, PriceSuggestion.Basis.LISTED_ANY_CONDITION, 1))
+                .or(() -> suggestFrom(sold.get(anyCondition), categoryId, condition, PriceSuggestion.Basis.SOLD_ANY_CONDITION, 1));
+    }
+
+    // ============ INTERNALS ============
+
+    /**
+     * Reads both sets, then swaps them in with the listings and sales recorded
+     * meanwhile that the read did not include
+     */
+    private void reload(Map<Long, ProductSnapshot> listedMeanwhile, Map<Long, PriceRealizedEvent> soldMeanwhile) {
+        Map<Cell, TDigest> freshListed = new ConcurrentHashMap<>();
+        for (ProductSnapshot product : productRepository.findAvailableSnapshots()) {
+            add(freshListed, product.categoryId(), product.condition(), product.price(), 1);
+        }
+        Map<Cell, TDigest> freshSold = new ConcurrentHashMap<>();
+        LocalDateTime since = LocalDateTime.now().minusDays(soldWindowDays);
+        for (RealizedPriceRow row : orderItemRepository.findRealizedPricesSince(since)) {
+            add(freshSold, row.getCategoryId(), row.getCondition(), row.getPrice(),
+                    row.getQuantity() != null ? row.getQuantity() : 1);
+        }
+
+        lock.writeLock().lock();
+        try {
+            // Events from here on go straight into the fresh digests
+            listedDuringReload = null;
+            soldDuringReload = null;
+            if (!listedMeanwhile.isEmpty()) {
+                Map<Long, ProductSnapshot> read = new HashMap<>();
+                for (ProductSnapshot product : productRepository.findSnapshotsByIds(listedMeanwhile.keySet())) {
+                    read.put(product.id(), product);
+                }
+                for (ProductSnapshot product : listedMeanwhile.values()) {
+                    if (!samePrice(read.get(product.id()), product)) {
+                        add(freshListed, product.categoryId(), product.condition(), product.price(), 1);
+                    }
+                }
+            }
+            if (!soldMeanwhile.isEmpty()) {
+                Set<Long> read = new HashSet<>(orderItemRepository.findExistingIds(soldMeanwhile.keySet()));
+                for (PriceRealizedEvent event : soldMeanwhile.values()) {
+                    if (!read.contains(event.orderItemId())) {
+                        add(freshSold, event.categoryId(), event.condition(), event.price(), Math.max(event.quantity(), 1));
+                    }
+                }
+            }
+            listed = freshListed;
+            sold = freshSold;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Whether the earlier state was an available listing at the same price, category and condition,
+     * i.e. already counted
+     */
+    private static boolean samePrice(ProductSnapshot earlier, ProductSnapshot product) {
+        return earlier != null && earlier.available()
+                && Objects.equals(earlier.categoryId(), product.categoryId())
+                && earlier.condition() == product.condition()
+                && earlier.price() != null && product.price() != null
+                && earlier.price().compareTo(product.price()) == 0;
+    }
+
+    private Optional<PriceSuggestion> suggestFrom(TDigest digest, Long categoryId, Product.ProductCondition condition,
+                                                  PriceSuggestion.Basis basis, int minSamples) {
+        if (digest == null) {
+            return Optional.empty();
+        }
+        double low;
+        double median;
+        double high;
+        long samples;
+        synchronized (digest) {
+            samples = Math.round(digest.count());
+            if (samples < minSamples) {
+                return Optional.empty();
+            }
+            low = digest.quantile(0.25);
+            median = digest.quantile(0.5);
+            high = digest.quantile(0.75);
+        }
+        return Optional.of(new PriceSuggestion(categoryId, condition,
+                toPrice(low), toPrice(median), toPrice(high), samples, basis));
+    }
+
+    private static void add(Map<Cell, TDigest> digests, Long categoryId, Product.ProductCondition condition,
+                            BigDecimal price, int weight) {
+        if (categoryId == null || price == null || price.signum() < 0) {
+            return;
+        }
+        double value = price.doubleValue();
+        if (condition != null) {
+            addTo(digests.computeIfAbsent(new Cell(categoryId, condition), cell -> new TDigest(COMPRESSION)), value, weight);
+        }
+        addTo(digests.computeIfAbsent(new Cell(categoryId, null), cell -> new TDigest(COMPRESSION)), value, weight);
+    }
+
+    private static void addTo(TDigest digest, double value, int weight) {
+        synchronized (digest) {
+            digest.add(value, weight);
+        }
+    }
+
+    private static BigDecimal toPrice(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * A category and condition; a null condition is the whole category
+     */
+    private record Cell(Long categoryId, Product.ProductCondition condition) {}
+}
@@ -0,0 +1,483 @@
+package com.secondhand.store.service;
+
+import com.secondhand.store.entity.Category;
+import com.secondhand.store.event.ProductActivityEvent;
+import com.secondhand.store.event.ProductChangedEvent;
+import com.secondhand.store.event.ProductSnapshot;
+import com.secondhand.store.repository.CategoryRepository;
+import com.secondhand.store.repository.ProductRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Search-as-you-type suggestions from product names, brands, keywords and
+ * category names. Phrases live in a trie where every node knows the highest
+ * weight below it, so the top k completions of a prefix are found best-first
+ * without visiting the rest of the subtree. A phrase is weighted by the
+ * popularity (1 + views) of the available products that contribute it; views
+ * are collected as they happen and added to the weights every few seconds.
+ */
+@Component
+public class ProductAutocompleteIndex {
+
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Longer phrases aren't useful as suggestions
+    private static final int MAX_PHRASE_LENGTH = 60;
+
+    // A phrase can also be completed from the start of its first few words ("iph" -> "Apple iPhone 12")
+    private static final int MAX_WORD_STARTS = 4;
+
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Completion[] NO_COMPLETIONS = new Completion[0];
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node root = new Node();
+
+    // normalized phrase -> its completion
+    private final Map<String, Completion> completions = new HashMap<>();
+
+    // product id -> what it contributed, needed to take it back out
+    private final Map<Long, Contribution> contributions = new HashMap<>();
+
+    private final Map<Long, String> categoryNames = new HashMap<>();
+
+    // product id -> views not yet added to its weight
+    private final Map<Long, Long> pendingViews = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+
+    public ProductAutocompleteIndex(ProductRepository productRepository, CategoryRepository categoryRepository) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+    }
+
+    // ============ MAINTENANCE ============
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Category> categories = categoryRepository.findAll();
+        List<ProductSnapshot> products = productRepository.findAvailableSnapshots();
+
+        lock.writeLock().lock();
+        try {
+            root.labels = NO_LABELS;
+            root.children = NO_CHILDREN;
+            root.maxWeight = 0;
+            completions.clear();
+            contributions.clear();
+            categoryNames.clear();
+            for (Category category : categories) {
+                categoryNames.put(category.getId(), category.getName());
+            }
+            for (ProductSnapshot product : products) {
+                addProduct(product);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        switch (event.type()) {
+            case CREATED, UPDATED -> index(event.product());
+            case SOLD, DELETED -> remove(event.productId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductActivity(ProductActivityEvent event) {
+        if (event.type() == ProductActivityEvent.Type.VIEW) {
+            pendingViews.merge(event.productId(), (long) Math.max(event.quantity(), 1), Long::sum);
+        }
+    }
+
+    /**
+     * Adds the views collected since the last call to the weights of the phrases
+     * their products contribute, so listings that get popular rise in the suggestions
+     */
+    @Scheduled(fixedDelayString = "${store.autocomplete.view-interval-ms:5000}")
+    public void applyViews() {
+        if (pendingViews.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Long productId : pendingViews.keySet()) {
+                Long views = pendingViews.remove(productId);
+                Contribution contribution = contributions.get(productId);
+                if (views != null && contribution != null) {
+                    addWeight(productId, contribution, views);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(ProductSnapshot product) {
+        String categoryName = product.categoryId() != null ? categoryName(product.categoryId()) : null;
+
+        lock.writeLock().lock();
+        try {
+            if (categoryName != null) {
+                categoryNames.put(product.categoryId(), categoryName);
+            }
+            removeProduct(product.id());
+            if (product.available()) {
+                addProduct(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeProduct(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ============ QUERYING ============
+
+    /**
+     * Up to limit phrases completing the prefix, most popular first
+     */
+    public List<String> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+
+            // Best-first over the subtree: a node is only expanded when its best
+            // weight can still beat what is already collected
+            PriorityQueue<Candidate> queue = new PriorityQueue<>(Candidate.BEST_FIRST);
+            queue.add(new Candidate(node.maxWeight, key.length(), node, null));
+            Set<String> results = new LinkedHashSet<>();
+            while (!queue.isEmpty() && results.size() < limit) {
+                Candidate next = queue.poll();
+                if (next.completion != null) {
+                    results.add(next.completion.text);
+                    continue;
+                }
+                for (Completion completion : next.node.completions) {
+                    queue.add(new Candidate(completion.weight, next.depth, null, completion));
+                }
+                for (Node child : next.node.children) {
+                    queue.add(new Candidate(child.maxWeight, next.depth + 1, child, null));
+                }
+            }
+            return new ArrayList<>(results);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ============ INTERNALS ============
+
+    private void addProduct(ProductSnapshot product) {
+        Set<String> phrases = new LinkedHashSet<>();
+        addPhrase(phrases, product.name());
+        addPhrase(phrases, product.brand());
+        if (product.keywords() != null) {
+            for (String keyword : product.keywords().split(",")) {
+                addPhrase(phrases, keyword);
+            }
+        }
+        if (product.categoryId() != null) {
+            addPhrase(phrases, categoryNames.get(product.categoryId()));
+        }
+
+        long weight = 1 + Math.max(product.viewCount(), 0);
+        Set<String> keys = new HashSet<>();
+        for (String text : phrases) {
+            String key = normalize(text);
+            if (!keys.add(key)) {
+                continue; // Same phrase in two fields counts once
+            }
+            Completion completion = completions.get(key);
+            if (completion == null) {
+                completion = new Completion(text);
+                completions.put(key, completion);
+                completion.weight = weight;
+                completion.products = 1;
+                for (String suffix : wordStarts(key)) {
+                    insert(suffix, completion);
+                }
+            } else {
+                completion.weight += weight;
+                completion.products++;
+                for (String suffix : wordStarts(key)) {
+                    refresh(suffix);
+                }
+            }
+        }
+        contributions.put(product.id(), new Contribution(keys.toArray(String[]::new), weight));
+    }
+
+    private void addWeight(Long productId, Contribution contribution, long delta) {
+        contributions.put(productId, new Contribution(contribution.keys, contribution.weight + delta));
+        for (String key : contribution.keys) {
+            Completion completion = completions.get(key);
+            if (completion == null) {
+                continue;
+            }
+            completion.weight += delta;
+            for (String suffix : wordStarts(key)) {
+                refresh(suffix);
+            }
+        }
+    }
+
+    private void removeProduct(Long productId) {
+        Contribution contribution = contributions.remove(productId);
+        if (contribution == null) {
+            return;
+        }
+        for (String key : contribution.keys) {
+            Completion completion = completions.get(key);
+            if (completion == null) {
+                continue;
+            }
+            completion.weight -= contribution.weight;
+            completion.products--;
+            if (completion.products <= 0) {
+                completions.remove(key);
+                for (String suffix : wordStarts(key)) {
+                    delete(suffix, completion);
+                }
+            } else {
+                for (String suffix : wordStarts(key)) {
+                    refresh(suffix);
+                }
+            }
+        }
+    }
+
+    private void insert(String key, Completion completion) {
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length(); i++) {
+            path[i + 1] = path[i].childOrCreate(key.charAt(i));
+        }
+        Node last = path[key.length()];
+        last.completions = Arrays.copyOf(last.completions, last.completions.length + 1);
+        last.completions[last.completions.length - 1] = completion;
+        recompute(path);
+    }
+
+    private void delete(String key, Completion completion) {
+        Node[] path = findPath(key);
+        if (path == null) {
+            return;
+        }
+        Node last = path[key.length()];
+        last.completions = Arrays.stream(last.completions)
+                .filter(existing -> existing != completion)
+                .toArray(Completion[]::new);
+
+        // Prune nodes left without completions or children
+        for (int i = key.length(); i > 0 && path[i].isEmpty(); i--) {
+            path[i - 1].removeChild(key.charAt(i - 1));
+        }
+        recompute(path);
+    }
+
+    private void refresh(String key) {
+        Node[] path = findPath(key);
+        if (path != null) {
+            recompute(path);
+        }
+    }
+
+    private Node[] findPath(String key) {
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length(); i++) {
+            path[i + 1] = path[i].child(key.charAt(i));
+            if (path[i + 1] == null) {
+                return null;
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Recomputes maxWeight bottom-up along a root-to-node path
+     */
+    private static void recompute(Node[] path) {
+        for (int i = path.length - 1; i >= 0; i--) {
+            long max = 0;
+            for (Completion completion : path[i].completions) {
+                max = Math.max(max, completion.weight);
+            }
+            for (Node child : path[i].children) {
+                max = Math.max(max, child.maxWeight);
+            }
+            path[i].maxWeight = max;
+        }
+    }
+
+    private String categoryName(Long categoryId) {
+        lock.readLock().lock();
+        try {
+            String name = categoryNames.get(categoryId);
+            if (name != null) {
+                return name;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return categoryRepository.findById(categoryId).map(Category::getName).orElse(null);
+    }
+
+    private static void addPhrase(Set<String> phrases, String text) {
+        if (text == null) {
+            return;
+        }
+        String trimmed = text.trim();
+        if (!trimmed.isEmpty() && trimmed.length() <= MAX_PHRASE_LENGTH && !normalize(trimmed).isEmpty()) {
+            phrases.add(trimmed);
+        }
+    }
+
+    /**
+     * The key itself and its suffixes starting at the next few words
+     */
+    private static List<String> wordStarts(String key) {
+        List<String> suffixes = new ArrayList<>();
+        suffixes.add(key);
+        int from = 0;
+        while (suffixes.size() < MAX_WORD_STARTS) {
+            int space = key.indexOf(' ', from);
+            if (space < 0) {
+                break;
+            }
+            suffixes.add(key.substring(space + 1));
+            from = space + 1;
+        }
+        return suffixes;
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return SEPARATOR.matcher(text.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static final class Node {
+        // Children sorted by label for binary search
+        char[] labels = NO_LABELS;
+        Node[] children = NO_CHILDREN;
+        Completion[] completions = NO_COMPLETIONS;
+        long maxWeight;
+
+        Node child(char label) {
+            int at = Arrays.binarySearch(labels, label);
+            return at >= 0 ? children[at] : null;
+        }
+
+        Node childOrCreate(char label) {
+            int at = Arrays.binarySearch(labels, label);
+            if (at >= 0) {
+                return children[at];
+            }
+            int insertAt = -at - 1;
+            Node child = new Node();
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newLabels[insertAt] = label;
+            newChildren[insertAt] = child;
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            labels = newLabels;
+            children = newChildren;
+            return child;
+        }
+
+        void removeChild(char label) {
+            int at = Arrays.binarySearch(labels, label);
+            if (at < 0) {
+                return;
+            }
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            System.arraycopy(labels, at + 1, newLabels, at, labels.length - at - 1);
+            System.arraycopy(children, at + 1, newChildren, at, children.length - at - 1);
+            labels = newLabels;
+            children = newChildren;
+        }
+
+        boolean isEmpty() {
+            return children.length == 0 && completions.length == 0;
+        }
+    }
+
+    private static final class Completion {
+        final String text;
+        long weight;
+        int products;
+
+        Completion(String text) {
+            this.text = text;
+        }
+    }
+
+    private record Contribution(String[] keys, long weight) {}
+
+    private record Candidate(long weight, int depth, Node node, Completion completion) {
+        // Highest weight first; among equals, completions before nodes (shortest, then
+        // alphabetical) and deeper nodes before shallower ones, so ties don't go breadth-first
+        static final Comparator<Candidate> BEST_FIRST = Comparator
+                .comparingLong(Candidate::weight).reversed()
+                .thenComparing(candidate -> candidate.completion == null)
+                .thenComparing(candidate -> candidate.completion != null ? candidate.completion.text.length() : -candidate.depth)
+                .thenComparing(candidate -> candidate.completion != null ? candidate.completion.text : "");
+    }
+}
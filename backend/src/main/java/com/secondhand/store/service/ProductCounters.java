@@ -0,0 +1,132 @@
+package com.secondhand.store.service;
+
+import com.secondhand.store.dto.CounterStats;
+import com.secondhand.store.event.FavoriteChangedEvent;
+import com.secondhand.store.event.ProductActivityEvent;
+import com.secondhand.store.event.ProductChangedEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * Write-behind counters of product_stats: views, favorites and cart adds.
+ * Each click only touches an in-memory CounterBuffer; every few seconds all
+ * buffers are flushed as batched increments.
+ * <p>
+ * Loss is bounded: failed flushes are retried with the next one and the
+ * remainder is flushed on shutdown. Only a crash loses deltas, at most one
+ * flush interval's worth.
+ */
+@Component
+public class ProductCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCounters.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final CounterBuffer views = new CounterBuffer("views", upsert("view_count"));
+    private final CounterBuffer favorites = new CounterBuffer("favorites", upsert("favorite_count"));
+    private final CounterBuffer cartAdds = new CounterBuffer("cartAdds", upsert("cart_add_count"));
+
+    public ProductCounters(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Adds the delta to one column, inserting the stats row if the product has none yet.
+     * Counters are clamped at zero so a stray unfavorite can't leave a negative count.
+     * Deltas of deleted products join no row and are dropped instead of failing the batch.
+     */
+    private static String upsert(String column) {
+        return "INSERT INTO product_stats (product_id, view_count, favorite_count, cart_add_count) " +
+                "SELECT product_id, " +
+                zeroUnless("view_count", column) + ", " +
+                zeroUnless("favorite_count", column) + ", " +
+                zeroUnless("cart_add_count", column) + " " +
+                "FROM (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT))) AS delta (product_id, amount) " +
+                "JOIN products p ON p.id = delta.product_id " +
+                "ON CONFLICT (product_id) DO UPDATE SET " +
+                column + " = GREATEST(product_stats." + column + " + EXCLUDED." + column + ", 0)";
+    }
+
+    private static String zeroUnless(String column, String target) {
+        return column.equals(target) ? "amount" : "0";
+    }
+
+    public void recordView(Long productId) {
+        views.add(productId, 1);
+    }
+
+    /**
+     * Views recorded for the product that are not in product_stats.view_count yet
+     */
+    public long pendingViews(Long productId) {
+        return views.pending(productId);
+    }
+
+    public long pendingFavorites(Long productId) {
+        return favorites.pending(productId);
+    }
+
+    @TransactionalEventListener
+    public void onFavoriteChanged(FavoriteChangedEvent event) {
+        favorites.add(event.productId(), event.added() ? 1 : -1);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductActivity(ProductActivityEvent event) {
+        if (event.type() == ProductActivityEvent.Type.CART_ADD) {
+            cartAdds.add(event.productId(), 1);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.type() == ProductChangedEvent.Type.DELETED) {
+            views.discard(event.productId());
+            favorites.discard(event.productId());
+            cartAdds.discard(event.productId());
+        }
+    }
+
+    // ============ FLUSHING ============
+
+    @Scheduled(fixedDelayString = "${store.counters.flush-interval-ms:5000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Flushes every counter and returns the total delta written. A counter that
+     * fails keeps its deltas; the others are flushed regardless.
+     */
+    public long flush() {
+        long flushed = 0;
+        for (CounterBuffer buffer : List.of(views, favorites, cartAdds)) {
+            try {
+                flushed += buffer.flush(jdbcTemplate);
+            } catch (RuntimeException e) {
+                // Deltas stay pending and go out with the next flush
+                log.warn("Flushing product counter {} failed, will retry: {}", buffer.stats().counter(), e.getMessage());
+            }
+        }
+        return flushed;
+    }
+
+    // ============ METRICS ============
+
+    public List<CounterStats> stats() {
+        return List.of(views.stats(), favorites.stats(), cartAdds.stats());
+    }
+}
@@ -0,0 +1,403 @@
+package com.secondhand.store.service;
+
+import com.secondhand.store.dto.ProductSearchCriteria;
+import com.secondhand.store.entity.Product;
+import com.secondhand.store.event.ProductChangedEvent;
+import com.secondhand.store.event.ProductSnapshot;
+import com.secondhand.store.repository.ProductRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Column-oriented bitmap index over available products, used to answer a filtered
+ * search and all of its facet counts (category, condition, city, price range)
+ * in a single pass. Pages are ordered newest first by creation time, like
+ * searchProducts; document numbers only follow creation order roughly, since a
+ * listing that comes back (e.g. reopened after a cancellation) gets a new one.
+ */
+@Component
+public class ProductFacetIndex {
+
+    // Lower bounds of the price range facet, in cents
+    private static final long[] PRICE_RANGE_BOUNDS = {0, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000};
+    private static final String[] PRICE_RANGE_LABELS = {"0-25", "25-50", "50-100", "100-250", "250-500", "500-1000", "1000+"};
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NO_CITY = -1;
+    private static final BitSet EMPTY = new BitSet();
+
+    private final ProductRepository productRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Per-document columns
+    private long[] productIds = new long[INITIAL_CAPACITY];
+    private long[] categoryIds = new long[INITIAL_CAPACITY];
+    private byte[] conditions = new byte[INITIAL_CAPACITY];
+    private int[] cities = new int[INITIAL_CAPACITY];
+    private long[] pricesInCents = new long[INITIAL_CAPACITY];
+    private String[] upperCaseNames = new String[INITIAL_CAPACITY];
+    private long[] createdAtMicros = new long[INITIAL_CAPACITY];
+    private int documentCount = 0;
+
+    // Bitmaps
+    private final BitSet live = new BitSet();
+    private final Map<Long, BitSet> categoryBitmaps = new HashMap<>();
+    private final BitSet[] conditionBitmaps = new BitSet[Product.ProductCondition.values().length];
+    private final List<BitSet> cityBitmaps = new ArrayList<>();
+
+    // Dictionaries
+    private final Map<Long, Integer> documentsByProductId = new HashMap<>();
+    private final Map<String, Integer> cityCodes = new HashMap<>();
+    private final List<String> cityNames = new ArrayList<>();
+
+    private volatile boolean ready = false;
+
+    public ProductFacetIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+        for (int i = 0; i < conditionBitmaps.length; i++) {
+            conditionBitmaps[i] = new BitSet();
+        }
+    }
+
+    // ============ MAINTENANCE ============
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            List<ProductSnapshot> products = new ArrayList<>(productRepository.findAvailableSnapshots());
+            products.sort(Comparator.comparing(ProductSnapshot::createdAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(ProductSnapshot::id));
+
+            clear();
+            for (ProductSnapshot product : products) {
+                addDocument(product);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            switch (event.type()) {
+                case CREATED, UPDATED -> {
+                    if (event.product().available()) {
+                        updateDocument(event.product());
+                    } else {
+                        removeDocument(event.productId());
+                    }
+                }
+                case SOLD, DELETED -> removeDocument(event.productId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ============ QUERYING ============
+
+    /**
+     * Evaluate the filters once and return the requested page of product ids
+     * (newest first) together with the facet counts of the whole result set.
+     */
+    public Result search(ProductSearchCriteria criteria, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet matched = (BitSet) live.clone();
+            if (criteria.categoryId() != null) {
+                matched.and(categoryBitmaps.getOrDefault(criteria.categoryId(), EMPTY));
+            }
+            if (criteria.condition() != null) {
+                matched.and(conditionBitmaps[criteria.condition().ordinal()]);
+            }
+            if (criteria.hasCity()) {
+                Integer cityCode = cityCodes.get(normalizeCity(criteria.city()));
+                matched.and(cityCode != null ? cityBitmaps.get(cityCode) : EMPTY);
+            }
+
+            // Range and substring filters are checked per document during the pass
+            long minPrice = criteria.minPrice() != null ? toCents(criteria.minPrice(), RoundingMode.CEILING) : Long.MIN_VALUE;
+            long maxPrice = criteria.maxPrice() != null ? toCents(criteria.maxPrice(), RoundingMode.FLOOR) : Long.MAX_VALUE;
+            String name = criteria.hasName() ? criteria.name().trim().toUpperCase(Locale.ROOT) : null;
+
+            // The newest offset + limit matches, oldest on top so it is the one evicted
+            int wanted = (int) Math.min(offset + limit, documentCount);
+            PriorityQueue<Integer> newest = new PriorityQueue<>(Math.max(wanted, 1) + 1, this::compareAge);
+            long total = 0;
+            Map<Long, Long> categoryCounts = new HashMap<>();
+            long[] conditionCounts = new long[conditionBitmaps.length];
+            long[] cityCounts = new long[cityNames.size()];
+            long[] priceRangeCounts = new long[PRICE_RANGE_BOUNDS.length];
+
+            for (int doc = matched.previousSetBit(documentCount - 1); doc >= 0; doc = matched.previousSetBit(doc - 1)) {
+                long price = pricesInCents[doc];
+                if (price < minPrice || price > maxPrice) {
+                    continue;
+                }
+                if (name != null && !upperCaseNames[doc].contains(name)) {
+                    continue;
+                }
+
+                if (wanted > 0) {
+                    newest.add(doc);
+                    if (newest.size() > wanted) {
+                        newest.poll();
+                    }
+                }
+                total++;
+
+                categoryCounts.merge(categoryIds[doc], 1L, Long::sum);
+                conditionCounts[conditions[doc]]++;
+                if (cities[doc] != NO_CITY) {
+                    cityCounts[cities[doc]]++;
+                }
+                priceRangeCounts[priceRange(price)]++;
+            }
+
+            List<Long> pageIds = new ArrayList<>(limit);
+            for (long skip = newest.size() - offset; skip > 0; skip--) {
+                pageIds.add(productIds[newest.poll()]);
+            }
+            return new Result(pageIds.reversed(), total, categoryCounts,
+                    conditionFacet(conditionCounts), cityFacet(cityCounts), priceRangeFacet(priceRangeCounts));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Product.ProductCondition, Long> conditionFacet(long[] counts) {
+        Map<Product.ProductCondition, Long> facet = new LinkedHashMap<>();
+        for (Product.ProductCondition condition : Product.ProductCondition.values()) {
+            if (counts[condition.ordinal()] > 0) {
+                facet.put(condition, counts[condition.ordinal()]);
+            }
+        }
+        return facet;
+    }
+
+    private Map<String, Long> cityFacet(long[] counts) {
+        Map<String, Long> facet = new HashMap<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                facet.put(cityNames.get(code), counts[code]);
+            }
+        }
+        return facet;
+    }
+
+    private static Map<String, Long> priceRangeFacet(long[] counts) {
+        Map<String, Long> facet = new LinkedHashMap<>();
+        for (int range = 0; range < counts.length; range++) {
+            if (counts[range] > 0) {
+                facet.put(PRICE_RANGE_LABELS[range], counts[range]);
+            }
+        }
+        return facet;
+    }
+
+    // ============ INTERNALS (callers hold the write lock) ============
+
+    private void addDocument(ProductSnapshot product) {
+        ensureCapacity(documentCount + 1);
+        int doc = documentCount++;
+        productIds[doc] = product.id();
+        documentsByProductId.put(product.id(), doc);
+        setAttributes(doc, product);
+        live.set(doc);
+    }
+
+    private void updateDocument(ProductSnapshot product) {
+        Integer doc = documentsByProductId.get(product.id());
+        if (doc == null) {
+            addDocument(product);
+            return;
+        }
+        clearAttributes(doc);
+        setAttributes(doc, product);
+    }
+
+    private void removeDocument(Long productId) {
+        Integer doc = documentsByProductId.remove(productId);
+        if (doc == null) {
+            return;
+        }
+        clearAttributes(doc);
+        live.clear(doc);
+        upperCaseNames[doc] = null;
+
+        // Reclaim dead slots once they make up most of the arrays
+        if (documentCount > INITIAL_CAPACITY && live.cardinality() < documentCount / 2) {
+            compact();
+        }
+    }
+
+    private void setAttributes(int doc, ProductSnapshot product) {
+        categoryIds[doc] = product.categoryId();
+        categoryBitmaps.computeIfAbsent(product.categoryId(), id -> new BitSet()).set(doc);
+
+        conditions[doc] = (byte) product.condition().ordinal();
+        conditionBitmaps[product.condition().ordinal()].set(doc);
+
+        cities[doc] = cityCode(product.locationCity());
+        if (cities[doc] != NO_CITY) {
+            cityBitmaps.get(cities[doc]).set(doc);
+        }
+
+        pricesInCents[doc] = toCents(product.price(), RoundingMode.HALF_UP);
+        upperCaseNames[doc] = product.name() != null ? product.name().toUpperCase(Locale.ROOT) : "";
+        createdAtMicros[doc] = toMicros(product.createdAt());
+    }
+
+    private void clearAttributes(int doc) {
+        BitSet categoryBitmap = categoryBitmaps.get(categoryIds[doc]);
+        if (categoryBitmap != null) {
+            categoryBitmap.clear(doc);
+        }
+        conditionBitmaps[conditions[doc]].clear(doc);
+        if (cities[doc] != NO_CITY) {
+            cityBitmaps.get(cities[doc]).clear(doc);
+        }
+    }
+
+    private int cityCode(String city) {
+        if (city == null || city.isBlank()) {
+            return NO_CITY;
+        }
+        return cityCodes.computeIfAbsent(normalizeCity(city), key -> {
+            cityNames.add(city.trim());
+            cityBitmaps.add(new BitSet());
+            return cityNames.size() - 1;
+        });
+    }
+
+    private void compact() {
+        int target = 0;
+        for (int doc = live.nextSetBit(0); doc >= 0; doc = live.nextSetBit(doc + 1)) {
+            productIds[target] = productIds[doc];
+            categoryIds[target] = categoryIds[doc];
+            conditions[target] = conditions[doc];
+            cities[target] = cities[doc];
+            pricesInCents[target] = pricesInCents[doc];
+            upperCaseNames[target] = upperCaseNames[doc];
+            createdAtMicros[target] = createdAtMicros[doc];
+            target++;
+        }
+        Arrays.fill(upperCaseNames, target, documentCount, null);
+        documentCount = target;
+
+        live.clear();
+        categoryBitmaps.clear();
+        for (BitSet bitmap : conditionBitmaps) {
+            bitmap.clear();
+        }
+        for (BitSet bitmap : cityBitmaps) {
+            bitmap.clear();
+        }
+        documentsByProductId.clear();
+
+        for (int doc = 0; doc < documentCount; doc++) {
+            live.set(doc);
+            documentsByProductId.put(productIds[doc], doc);
+            categoryBitmaps.computeIfAbsent(categoryIds[doc], id -> new BitSet()).set(doc);
+            conditionBitmaps[conditions[doc]].set(doc);
+            if (cities[doc] != NO_CITY) {
+                cityBitmaps.get(cities[doc]).set(doc);
+            }
+        }
+    }
+
+    private void clear() {
+        documentCount = 0;
+        live.clear();
+        categoryBitmaps.clear();
+        for (BitSet bitmap : conditionBitmaps) {
+            bitmap.clear();
+        }
+        cityBitmaps.clear();
+        cityCodes.clear();
+        cityNames.clear();
+        documentsByProductId.clear();
+        Arrays.fill(upperCaseNames, null);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= productIds.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, productIds.length * 2);
+        productIds = Arrays.copyOf(productIds, newCapacity);
+        categoryIds = Arrays.copyOf(categoryIds, newCapacity);
+        conditions = Arrays.copyOf(conditions, newCapacity);
+        cities = Arrays.copyOf(cities, newCapacity);
+        pricesInCents = Arrays.copyOf(pricesInCents, newCapacity);
+        upperCaseNames = Arrays.copyOf(upperCaseNames, newCapacity);
+        createdAtMicros = Arrays.copyOf(createdAtMicros, newCapacity);
+    }
+
+    // Creation time, then product id, like the rebuild order
+    private int compareAge(int doc, int other) {
+        int byCreatedAt = Long.compare(createdAtMicros[doc], createdAtMicros[other]);
+        return byCreatedAt != 0 ? byCreatedAt : Long.compare(productIds[doc], productIds[other]);
+    }
+
+    private static int priceRange(long priceInCents) {
+        int range = 0;
+        while (range + 1 < PRICE_RANGE_BOUNDS.length && priceInCents >= PRICE_RANGE_BOUNDS[range + 1]) {
+            range++;
+        }
+        return range;
+    }
+
+    private static long toCents(BigDecimal amount, RoundingMode roundingMode) {
+        return amount.movePointRight(2).setScale(0, roundingMode).longValueExact();
+    }
+
+    private static long toMicros(LocalDateTime time) {
+        if (time == null) {
+            return Long.MIN_VALUE;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    private static String normalizeCity(String city) {
+        return city.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * One page of matching product ids plus facet counts over all matches
+     */
+    public record Result(
+            List<Long> pageIds,
+            long total,
+            Map<Long, Long> categoryCounts,
+            Map<Product.ProductCondition, Long> conditionCounts,
+            Map<String, Long> cityCounts,
+            Map<String, Long> priceRangeCounts) {
+    }
+}
@@ -0,0 +1,201 @@
+package com.secondhand.store.service;
+
+import com.secondhand.store.event.ProductChangedEvent;
+import com.secondhand.store.event.ProductSnapshot;
+import com.secondhand.store.repository.ProductRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over the text of available products.
+ * Built once at startup and kept current from ProductChangedEvent.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Field weights: a hit in the name counts more than one in the description
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float BRAND_WEIGHT = 2.0f;
+    private static final float KEYWORDS_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    // Query terms that only match as a prefix score lower than exact matches
+    private static final float PREFIX_MATCH_FACTOR = 0.5f;
+
+    private final ProductRepository productRepository;
+
+    // term -> (product id -> weighted term frequency), sorted for prefix lookups
+    private final ConcurrentSkipListMap<String, Map<Long, Float>> postings = new ConcurrentSkipListMap<>();
+
+    // product id -> terms it was indexed under, needed to unindex it
+    private final Map<Long, String[]> documentTerms = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+
+    public ProductSearchIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    // ============ MAINTENANCE ============
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        postings.clear();
+        documentTerms.clear();
+        for (ProductSnapshot product : productRepository.findAvailableSnapshots()) {
+            addDocument(product);
+        }
+        ready = true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        switch (event.type()) {
+            case CREATED, UPDATED -> index(event.product());
+            case SOLD, DELETED -> remove(event.productId());
+        }
+    }
+
+    public synchronized void index(ProductSnapshot product) {
+        removeDocument(product.id());
+        if (product.available()) {
+            addDocument(product);
+        }
+    }
+
+    public synchronized void remove(Long productId) {
+        removeDocument(productId);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return documentTerms.size();
+    }
+
+    // ============ QUERYING ============
+
+    /**
+     * Returns the ids of all products matching every term of the query,
+     * best match first. Ties are broken by id, newest first.
+     */
+    public List<Long> search(String query) {
+        List<String> queryTerms = tokenize(query);
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+
+        int documentCount = Math.max(documentTerms.size(), 1);
+        Map<Long, Float> scores = null;
+
+        for (String queryTerm : queryTerms.stream().distinct().toList()) {
+            Map<Long, Float> termScores = scoreTerm(queryTerm, documentCount);
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                // Every query term has to match
+                Map<Long, Float> intersection = new HashMap<>();
+                for (Map.Entry<Long, Float> entry : scores.entrySet()) {
+                    Float termScore = termScores.get(entry.getKey());
+                    if (termScore != null) {
+                        intersection.put(entry.getKey(), entry.getValue() + termScore);
+                    }
+                }
+                scores = intersection;
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<Map.Entry<Long, Float>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Float>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())));
+        return ranked.stream().map(Map.Entry::getKey).toList();
+    }
+
+    private Map<Long, Float> scoreTerm(String queryTerm, int documentCount) {
+        Map<Long, Float> scores = new HashMap<>();
+        ConcurrentNavigableMap<String, Map<Long, Float>> matches =
+                postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, true);
+
+        for (Map.Entry<String, Map<Long, Float>> match : matches.entrySet()) {
+            Map<Long, Float> documents = match.getValue();
+            float idf = (float) Math.log(1.0 + (double) documentCount / Math.max(documents.size(), 1));
+            float factor = match.getKey().equals(queryTerm) ? 1.0f : PREFIX_MATCH_FACTOR;
+            for (Map.Entry<Long, Float> posting : documents.entrySet()) {
+                // A document matching several expansions of a prefix keeps its best one
+                scores.merge(posting.getKey(), posting.getValue() * idf * factor, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    // ============ INTERNALS ============
+
+    private void addDocument(ProductSnapshot product) {
+        Map<String, Float> frequencies = new HashMap<>();
+        addField(frequencies, product.name(), NAME_WEIGHT);
+        addField(frequencies, product.brand(), BRAND_WEIGHT);
+        addField(frequencies, product.keywords(), KEYWORDS_WEIGHT);
+        addField(frequencies, product.description(), DESCRIPTION_WEIGHT);
+
+        for (Map.Entry<String, Float> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new ConcurrentHashMap<>())
+                    .put(product.id(), entry.getValue());
+        }
+        documentTerms.put(product.id(), frequencies.keySet().toArray(String[]::new));
+    }
+
+    private void removeDocument(Long productId) {
+        String[] terms = documentTerms.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Float> documents = postings.get(term);
+            if (documents != null) {
+                documents.remove(productId);
+                if (documents.isEmpty()) {
+                    postings.remove(term, documents);
+                }
+            }
+        }
+    }
+
+    private static void addField(Map<String, Float> frequencies, String text, float weight) {
+        for (String term : tokenize(text)) {
+            frequencies.merge(term, weight, Float::sum);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> terms = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+}
@@ -3,34 +3,101 @@ package com.secondhand.store.service;
 import com.secondhand.store.entity.Product;
 import com.secondhand.store.entity.Category;
 import com.secondhand.store.entity.User;
+import com.secondhand.store.dto.CounterStats;
+import com.secondhand.store.dto.CursorPage;
+import com.secondhand.store.dto.FacetCount;
+import com.secondhand.store.dto.FacetedSearchResult;
+import com.secondhand.store.dto.PriceSuggestion;
+import com.secondhand.store.dto.ProductListing;
+import com.secondhand.store.dto.ProductSearchCriteria;
+import com.secondhand.store.dto.ScoredResult;
+import com.secondhand.store.event.ProductActivityEvent;
+import com.secondhand.store.event.ProductChangedEvent;
+import com.secondhand.store.event.ProductSnapshot;
+import com.secondhand.store.repository.InventoryHoldRepository;
 import com.secondhand.store.repository.ProductRepository;
+import com.secondhand.store.repository.ProductSpecifications;
+import com.secondhand.store.repository.SimilarityMatch;
 import com.secondhand.store.repository.CategoryRepository;
 import com.secondhand.store.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class ProductService {
 
+    // Sort keys that keyset pagination can seek on. createdAt, price and name each have an
+    // (is_available, key, id) index; stats.viewCount walks (view_count DESC, product_id) on
+    // product_stats and checks availability per row, which stays cheap while most products are listed
+    private static final Set<String> CURSOR_SORT_KEYS = Set.of("createdAt", "price", "name", "stats.viewCount");
+
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final UserRepository userRepository;
-
-    public ProductService(ProductRepository productRepository, CategoryRepository categoryRepository, UserRepository userRepository) {
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ProductSimilarityIndex productSimilarityIndex;
+    private final ProductAutocompleteIndex productAutocompleteIndex;
+    private final ProductCounters productCounters;
+    private final ProductTrendingIndex productTrendingIndex;
+    private final ProductUniqueViewerCounter productUniqueViewerCounter;
+    private final CategoryStatsAggregate categoryStatsAggregate;
+    private final PriceSuggestionIndex priceSuggestionIndex;
+    private final InventoryHoldRepository inventoryHoldRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SearchMode searchMode;
+
+    public ProductService(ProductRepository productRepository, CategoryRepository categoryRepository, UserRepository userRepository,
+                          ProductSearchIndex productSearchIndex, ProductFacetIndex productFacetIndex,
+                          ProductSimilarityIndex productSimilarityIndex, ProductAutocompleteIndex productAutocompleteIndex,
+                          ProductCounters productCounters, ProductTrendingIndex productTrendingIndex,
+                          ProductUniqueViewerCounter productUniqueViewerCounter,
+                          CategoryStatsAggregate categoryStatsAggregate,
+                          PriceSuggestionIndex priceSuggestionIndex,
+                          InventoryHoldRepository inventoryHoldRepository,
+                          ApplicationEventPublisher eventPublisher,
+                          @Value("${store.search.mode:INDEX}") SearchMode searchMode) {
         this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
         this.userRepository = userRepository;
+        this.productSearchIndex = productSearchIndex;
+        this.productFacetIndex = productFacetIndex;
+        this.productSimilarityIndex = productSimilarityIndex;
+        this.productAutocompleteIndex = productAutocompleteIndex;
+        this.productCounters = productCounters;
+        this.productTrendingIndex = productTrendingIndex;
+        this.productUniqueViewerCounter = productUniqueViewerCounter;
+        this.categoryStatsAggregate = categoryStatsAggregate;
+        this.priceSuggestionIndex = priceSuggestionIndex;
+        this.inventoryHoldRepository = inventoryHoldRepository;
+        this.eventPublisher = eventPublisher;
+        this.searchMode = searchMode;
     }
 
     // ============ PRODUCT MANAGEMENT ============
@@ -53,13 +120,49 @@ public class ProductService {
         // Set default values
         product.setIsAvailable(true);
         product.setIsSold(false);
-        product.setViewCount(0L);
-        product.setFavoriteCount(0L);
 
         // Validate product data
         validateProduct(product);
 
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.created(savedProduct));
+        return savedProduct;
+    }
+
+    /**
+     * Bulk listing import for one seller. Each product names its category (only the
+     * id is read); all categories are loaded in one query and the products, their
+     * stats rows and images are written in JDBC batches. All or nothing.
+     */
+    public List<Product> importProducts(Long sellerId, List<Product> products) throws Exception {
+        User seller = userRepository.findById(sellerId)
+                .orElseThrow(() -> new Exception("Seller not found with ID: " + sellerId));
+
+        Set<Long> categoryIds = products.stream()
+                .map(product -> product.getCategory() != null ? product.getCategory().getId() : null)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Category> categories = categoryRepository.findAllById(categoryIds).stream()
+                .collect(Collectors.toMap(Category::getId, Function.identity()));
+
+        for (Product product : products) {
+            Long categoryId = product.getCategory() != null ? product.getCategory().getId() : null;
+            Category category = categories.get(categoryId);
+            if (categoryId != null && category == null) {
+                throw new Exception("Category not found with ID: " + categoryId);
+            }
+            product.setCategory(category);
+            product.setSeller(seller);
+            product.setIsAvailable(true);
+            product.setIsSold(false);
+            validateProduct(product);
+        }
+
+        List<Product> savedProducts = productRepository.saveAll(products);
+        for (Product savedProduct : savedProducts) {
+            eventPublisher.publishEvent(ProductChangedEvent.created(savedProduct));
+        }
+        return savedProducts;
     }
 
 
@@ -69,30 +172,62 @@ public class ProductService {
 
 
     public Page<Product> getAvailableProducts(int page, int size, String sortBy, String sortDir) {
-        Sort sort = sortDir.equalsIgnoreCase("desc") ?
-                Sort.by(sortBy).descending() :
-                Sort.by(sortBy).ascending();
+        Sort sort = sortOf(sortBy, sortDir);
 
         Pageable pageable = PageRequest.of(page, size, sort);
-        return productRepository.findByIsAvailableTrue(pageable);
+        return productRepository.findSummaryByIsAvailableTrue(pageable);
+    }
+
+
+    /**
+     * Keyset-paginated variant of getAvailableProducts. Every slice costs the same
+     * no matter how deep the client scrolls, and no total count is run.
+     * When a cursor is given it carries the sort order and sortBy/sortDir are ignored.
+     */
+    public CursorPage<Product> scrollAvailableProducts(String cursor, int size, String sortBy, String sortDir) throws Exception {
+        KeysetCursor keysetCursor;
+        if (cursor == null || cursor.isBlank()) {
+            Sort sort = sortOf(sortBy, sortDir);
+            if (!sort.stream().allMatch(order -> CURSOR_SORT_KEYS.contains(order.getProperty()))) {
+                throw new Exception("Unsupported sort key for cursor pagination: " + sortBy);
+            }
+            keysetCursor = new KeysetCursor(sort, ScrollPosition.keyset());
+        } else {
+            keysetCursor = KeysetCursor.decode(cursor);
+            if (!keysetCursor.sort().stream().allMatch(order -> CURSOR_SORT_KEYS.contains(order.getProperty()))) {
+                throw new Exception("Invalid cursor");
+            }
+        }
+
+        Window<Product> window = productRepository.findByIsAvailableTrue(
+                keysetCursor.position(), keysetCursor.sort(), Limit.of(size));
+
+        return KeysetCursor.toPage(window, keysetCursor.sort());
     }
 
 
     public Optional<Product> getProductById(Long id) {
-        return productRepository.findById(id);
+        return productRepository.findDetailById(id);
     }
 
     public Optional<Product> getProductByIdAndIncrementView(Long id) {
-        Optional<Product> productOpt = productRepository.findById(id);
+        return getProductByIdAndIncrementView(id, null);
+    }
 
-        if (productOpt.isPresent()) {
-            Product product = productOpt.get();
-            product.incrementViewCount(); // Helper method we created in entity
-            productRepository.save(product);
-            return Optional.of(product);
-        }
 
-        return Optional.empty();
+    /**
+     * The view is counted in memory and written to view_count by ProductCounters
+     * in the background, so the returned viewCount can trail by a few seconds.
+     * viewerKey (user id, or session id for guests) feeds the unique viewer counts.
+     */
+    public Optional<Product> getProductByIdAndIncrementView(Long id, String viewerKey) {
+        Optional<Product> productOpt = productRepository.findDetailById(id);
+        productOpt.ifPresent(product -> {
+            productCounters.recordView(product.getId());
+            productUniqueViewerCounter.recordViewer(product.getId(), viewerKey);
+            eventPublisher.publishEvent(ProductActivityEvent.viewed(product.getId()));
+        });
+        return productOpt;
     }
 
 
@@ -104,6 +239,7 @@ public class ProductService {
         }
 
         Product existingProduct = existingProductOpt.get();
+        ProductSnapshot previous = ProductSnapshot.of(existingProduct);
 
         // Update fields
         existingProduct.setName(updatedProduct.getName());
@@ -121,18 +257,27 @@ public class ProductService {
 
         validateProduct(existingProduct);
 
-        return productRepository.save(existingProduct);
+        Product savedProduct = productRepository.save(existingProduct);
+        eventPublisher.publishEvent(ProductChangedEvent.of(ProductChangedEvent.Type.UPDATED, savedProduct, previous));
+        return savedProduct;
     }
 
 
     public void deleteProduct(Long productId) throws Exception {
-        if (!productRepository.existsById(productId)) {
+        Optional<Product> productOpt = productRepository.findById(productId);
+        if (productOpt.isEmpty()) {
             throw new Exception("Product not found with ID: " + productId);
         }
-        productRepository.deleteById(productId);
+        ProductSnapshot previous = ProductSnapshot.of(productOpt.get());
+        productRepository.delete(productOpt.get());
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(previous));
     }
 
 
+    /**
+     * Seller marks the item sold (e.g. sold elsewhere). A conditional UPDATE, so of two
+     * concurrent calls only one succeeds; checkouts holding the item lose their holds.
+     */
     public void markProductAsSold(Long productId) throws Exception {
         Optional<Product> productOpt = productRepository.findById(productId);
 
@@ -140,40 +285,152 @@ public class ProductService {
             throw new Exception("Product not found with ID: " + productId);
         }
 
-        Product product = productOpt.get();
-        product.markAsSold(); // Helper method from entity
-        productRepository.save(product);
+        ProductSnapshot previous = ProductSnapshot.of(productOpt.get());
+        if (productRepository.markSoldIfUnsold(productId, LocalDateTime.now()) == 0) {
+            throw new Exception("Product is already sold: " + productId);
+        }
+        inventoryHoldRepository.deleteByProductId(productId);
+        eventPublisher.publishEvent(ProductChangedEvent.sold(previous));
     }
 
     // ============ PRODUCT SEARCH & FILTERING ============
 
 
     public List<Product> searchProductsByName(String name) {
-        return productRepository.findByNameContainingIgnoreCaseAndIsAvailableTrue(name);
+        return switch (searchMode) {
+            case POSTGRES -> productRepository.rankedNameSearch(name);
+            case TRIGRAM -> productRepository.trigramNameSearch(name);
+            case INDEX -> productRepository.findByNameContainingIgnoreCaseAndIsAvailableTrue(name);
+        };
+    }
+
+    /**
+     * Search-as-you-type completions (product names, brands, keywords, categories),
+     * answered from memory; empty until the index has been built at startup.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<String> getSearchSuggestions(String prefix, int limit) {
+        return productAutocompleteIndex.suggest(prefix, limit);
+    }
+
+    /**
+     * Typo-tolerant search on name and brand, best match first
+     */
+    public List<ScoredResult<Product>> fuzzySearchProducts(String searchTerm, int limit) {
+        List<SimilarityMatch> matches = productRepository.findFuzzyMatches(searchTerm, limit);
+        Map<Long, Product> productsById = productRepository.findAllById(
+                        matches.stream().map(SimilarityMatch::getId).toList()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        return matches.stream()
+                .filter(match -> productsById.containsKey(match.getId()))
+                .map(match -> new ScoredResult<>(productsById.get(match.getId()), match.getScore()))
+                .toList();
     }
 
     public Page<Product> searchProducts(String name, Long categoryId, BigDecimal minPrice,
                                         BigDecimal maxPrice, Product.ProductCondition condition,
                                         String city, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+        ProductSearchCriteria criteria = new ProductSearchCriteria(name, categoryId, minPrice, maxPrice, condition, city);
 
-        return productRepository.searchProducts(name, categoryId, minPrice, maxPrice,
-                condition, city, pageable);
+        return productRepository.findAll(ProductSpecifications.matching(criteria), pageable);
     }
 
 
+    /**
+     * Same filters and ordering as searchProducts, plus counts per category, condition,
+     * city and price range for the whole result set, all from one pass over the facet index.
+     */
+    public FacetedSearchResult facetedSearch(ProductSearchCriteria criteria, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size);
+        if (!productFacetIndex.isReady()) {
+            // Index is still being built at startup: results without facets
+            Page<Product> products = productRepository.findAll(ProductSpecifications.matching(criteria),
+                    PageRequest.of(page, size, Sort.by("createdAt").descending()));
+            return new FacetedSearchResult(products, List.of(), List.of(), List.of(), List.of());
+        }
+
+        ProductFacetIndex.Result result = productFacetIndex.search(criteria, pageable.getOffset(), size);
+        Page<Product> products = loadPage(result.pageIds(), pageable, result.total());
+
+        Map<Long, String> categoryNames = categoryRepository.findAllById(result.categoryCounts().keySet()).stream()
+                .collect(Collectors.toMap(Category::getId, Category::getName));
+        List<FacetCount> categories = result.categoryCounts().entrySet().stream()
+                .map(entry -> new FacetCount(String.valueOf(entry.getKey()),
+                        categoryNames.getOrDefault(entry.getKey(), String.valueOf(entry.getKey())), entry.getValue()))
+                .sorted(Comparator.comparingLong(FacetCount::count).reversed())
+                .toList();
+        List<FacetCount> conditions = result.conditionCounts().entrySet().stream()
+                .map(entry -> new FacetCount(entry.getKey().name(), entry.getKey().getDisplayName(), entry.getValue()))
+                .toList();
+        List<FacetCount> cities = result.cityCounts().entrySet().stream()
+                .map(entry -> new FacetCount(entry.getKey(), entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingLong(FacetCount::count).reversed())
+                .toList();
+        List<FacetCount> priceRanges = result.priceRangeCounts().entrySet().stream()
+                .map(entry -> new FacetCount(entry.getKey(), entry.getKey(), entry.getValue()))
+                .toList();
+
+        return new FacetedSearchResult(products, categories, conditions, cities, priceRanges);
+    }
+
+    /**
+     * Keyset-paginated variant of searchProducts (newest first)
+     */
+    public CursorPage<Product> scrollSearchProducts(String name, Long categoryId, BigDecimal minPrice,
+                                                    BigDecimal maxPrice, Product.ProductCondition condition,
+                                                    String city, String cursor, int size) throws Exception {
+        Sort sort = Sort.by("createdAt").descending();
+        ScrollPosition position = ScrollPosition.keyset();
+        if (cursor != null && !cursor.isBlank()) {
+            KeysetCursor keysetCursor = KeysetCursor.decode(cursor);
+            if (!keysetCursor.sort().equals(sort)) {
+                throw new Exception("Invalid cursor");
+            }
+            position = keysetCursor.position();
+        }
+
+        ProductSearchCriteria criteria = new ProductSearchCriteria(name, categoryId, minPrice, maxPrice, condition, city);
+        ScrollPosition start = position;
+        Window<Product> window = productRepository.findBy(ProductSpecifications.matching(criteria),
+                query -> query.sortBy(sort).limit(size).scroll(start));
+
+        return KeysetCursor.toPage(window, sort);
+    }
+
+
+    /**
+     * A blank search term matches nothing, whichever search mode is used and
+     * whether or not the index has been built yet.
+     */
     public Page<Product> fullTextSearch(String searchTerm, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        return productRepository.fullTextSearch(searchTerm, pageable);
+        if (searchTerm == null || searchTerm.isBlank()) {
+            return Page.empty(PageRequest.of(page, size));
+        }
+        if (searchMode == SearchMode.POSTGRES) {
+            return productRepository.rankedFullTextSearch(searchTerm, PageRequest.of(page, size));
+        }
+
+        if (!productSearchIndex.isReady()) {
+            // Index is still being built at startup
+            Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+            return productRepository.fullTextSearch(searchTerm, pageable);
+        }
+
+        List<Long> rankedIds = productSearchIndex.search(searchTerm);
+        Pageable pageable = PageRequest.of(page, size);
+        int from = (int) Math.min(pageable.getOffset(), rankedIds.size());
+        int to = Math.min(from + size, rankedIds.size());
+        return loadPage(rankedIds.subList(from, to), pageable, rankedIds.size());
     }
 
     public List<Product> getProductsByCategory(Long categoryId) throws Exception {
-        Optional<Category> categoryOpt = categoryRepository.findById(categoryId);
-        if (categoryOpt.isEmpty()) {
+        if (!categoryRepository.existsById(categoryId)) {
             throw new Exception("Category not found with ID: " + categoryId);
         }
 
-        return productRepository.findByCategoryAndIsAvailableTrue(categoryOpt.get());
+        return productRepository.findSummaryByCategoryIdAndIsAvailableTrueOrderByCreatedAtDesc(categoryId);
     }
 
 
@@ -210,7 +467,34 @@ public class ProductService {
     }
 
 
+    /**
+     * Products with the most recent views, cart adds and purchases, in one category
+     * or overall (categoryId null). Falls back to lifetime views until the trending
+     * index is built.
+     */
+    public List<Product> getTrendingProducts(Long categoryId, int limit) {
+        if (!productTrendingIndex.isReady()) {
+            if (categoryId != null) {
+                return limit > 0
+                        ? productRepository.findMostViewedInCategory(categoryId, PageRequest.of(0, limit))
+                        : List.of();
+            }
+            return getMostViewedProducts().stream().limit(limit).toList();
+        }
+        return loadInOrder(productTrendingIndex.topTrending(categoryId, limit));
+    }
+
+
+    /**
+     * Ranked from the in-memory similarity index; only the resulting products are
+     * loaded. Products the index doesn't hold (sold, or before startup finished)
+     * fall back to the category and price range query.
+     */
     public List<Product> getSimilarProducts(Long productId, int limit) throws Exception {
+        if (productSimilarityIndex.isReady() && productSimilarityIndex.contains(productId)) {
+            return loadInOrder(productSimilarityIndex.similarTo(productId, limit));
+        }
+
         Optional<Product> productOpt = productRepository.findById(productId);
 
         if (productOpt.isEmpty()) {
@@ -228,21 +512,178 @@ public class ProductService {
                 minPrice, maxPrice, pageable);
     }
 
+    // ============ PRODUCT LISTINGS ============
+    // Same lists as above as ProductListing projections: one query each, no entities,
+    // no description and no lazy seller/category/image loads per row.
+
+    public Page<ProductListing> getAvailableListings(int page, int size, String sortBy, String sortDir) {
+        Sort sort = sortOf(sortBy, sortDir);
+
+        return productRepository.findListings(ProductSpecifications.isAvailable(), PageRequest.of(page, size, sort));
+    }
+
+
+    public List<ProductListing> getListingsByCategory(Long categoryId) throws Exception {
+        if (!categoryRepository.existsById(categoryId)) {
+            throw new Exception("Category not found with ID: " + categoryId);
+        }
+
+        return productRepository.findListings(
+                ProductSpecifications.isAvailable().and(ProductSpecifications.inCategory(categoryId)),
+                Pageable.unpaged(Sort.by("createdAt").descending())).getContent();
+    }
+
+
+    public List<ProductListing> getListingsBySeller(Long sellerId) throws Exception {
+        if (!userRepository.existsById(sellerId)) {
+            throw new Exception("Seller not found with ID: " + sellerId);
+        }
+
+        return productRepository.findListings(
+                ProductSpecifications.isAvailable().and(ProductSpecifications.soldBy(sellerId)),
+                Pageable.unpaged(Sort.by("createdAt").descending())).getContent();
+    }
+
+
+    public List<ProductListing> getListingsByCondition(Product.ProductCondition condition) {
+        return productRepository.findListings(
+                ProductSpecifications.isAvailable().and(ProductSpecifications.hasCondition(condition)),
+                Pageable.unpaged(Sort.by("createdAt").descending())).getContent();
+    }
+
+
+    public List<ProductListing> getListingsInPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        return productRepository.findListings(
+                ProductSpecifications.isAvailable()
+                        .and(ProductSpecifications.priceAtLeast(minPrice))
+                        .and(ProductSpecifications.priceAtMost(maxPrice)),
+                Pageable.unpaged(Sort.by("price").ascending())).getContent();
+    }
+
+
+    public List<ProductListing> getLatestListings(int limit) {
+        return productRepository.findListings(ProductSpecifications.isAvailable(),
+                Sort.by("createdAt").descending(), Math.min(limit, 20));
+    }
+
+
+    public List<ProductListing> getMostViewedListings() {
+        return productRepository.findListings(ProductSpecifications.isAvailable(),
+                Sort.by("stats.viewCount").descending(), 10);
+    }
+
+
+    public Page<ProductListing> searchListings(ProductSearchCriteria criteria, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+        return productRepository.findListings(ProductSpecifications.matching(criteria), pageable);
+    }
+
     // ============ PRODUCT ANALYTICS ============
 
 
+    public List<CounterStats> getCounterStats() {
+        return productCounters.stats();
+    }
+
+
+    /**
+     * Approximate (about 1%) distinct viewers of a product between two days, inclusive
+     */
+    public long getUniqueViewers(Long productId, LocalDate from, LocalDate to) {
+        return productUniqueViewerCounter.uniqueViewers(productId, from, to);
+    }
+
+
+    public SortedMap<LocalDate, Long> getDailyUniqueViewers(Long productId, LocalDate from, LocalDate to) {
+        return productUniqueViewerCounter.dailyUniqueViewers(productId, from, to);
+    }
+
+
+    /**
+     * Rows of (category, product count, average price) over the available products.
+     * Read from CategoryStatsAggregate once it is loaded; the GROUP BY queries are
+     * only the fallback during startup.
+     */
     public List<Object[]> getProductStatsByCategory() {
-        return productRepository.getProductStatsByCategory();
+        if (!categoryStatsAggregate.isReady()) {
+            return productRepository.getProductStatsByCategory();
+        }
+        SortedMap<Long, CategoryStatsAggregate.Totals> totals = categoryStatsAggregate.byCategory();
+        Map<Long, Category> categories = categoryRepository.findAllById(totals.keySet()).stream()
+                .collect(Collectors.toMap(Category::getId, Function.identity()));
+        return totals.entrySet().stream()
+                .filter(entry -> categories.containsKey(entry.getKey()))
+                .map(entry -> new Object[]{categories.get(entry.getKey()), entry.getValue().count(), entry.getValue().averagePrice()})
+                .toList();
     }
 
 
     public List<Object[]> countProductsByCondition() {
-        return productRepository.countProductsByCondition();
+        if (!categoryStatsAggregate.isReady()) {
+            return productRepository.countProductsByCondition();
+        }
+        return categoryStatsAggregate.byCondition().entrySet().stream()
+                .map(entry -> new Object[]{entry.getKey(), entry.getValue().count()})
+                .toList();
     }
 
 
     public List<Object[]> getAveragePriceByCategory() {
-        return productRepository.getAveragePriceByCategory();
+        if (!categoryStatsAggregate.isReady()) {
+            return productRepository.getAveragePriceByCategory();
+        }
+        return getProductStatsByCategory().stream()
+                .map(row -> new Object[]{((Category) row[0]).getName(), row[2]})
+                .toList();
+    }
+
+    /**
+     * Suggested price range (p25, median, p75) for listing an item of this category
+     * and condition. Empty when nothing comparable has been listed or sold yet.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<PriceSuggestion> getPriceSuggestion(Long categoryId, Product.ProductCondition condition) throws Exception {
+        if (!categoryRepository.existsById(categoryId)) {
+            throw new Exception("Category not found with ID: " + categoryId);
+        }
+        return priceSuggestionIndex.suggest(categoryId, condition);
+    }
+
+    // ============ HELPERS ============
+
+    /**
+     * Load the products of one page by id, keeping the given order
+     */
+    private Page<Product> loadPage(List<Long> pageIds, Pageable pageable, long total) {
+        return new PageImpl<>(loadInOrder(pageIds), pageable, total);
+    }
+
+    /**
+     * Counters are sorted through the product_stats association
+     */
+    private static Sort sortOf(String sortBy, String sortDir) {
+        String property = switch (sortBy) {
+            case "viewCount", "favoriteCount" -> "stats." + sortBy;
+            default -> sortBy;
+        };
+        return sortDir.equalsIgnoreCase("desc") ?
+                Sort.by(property).descending() :
+                Sort.by(property).ascending();
+    }
+
+    /**
+     * Loads products by id in one query, keeping the order of the given ids
+     */
+    private List<Product> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Product> productsById = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return ids.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 
     // ============ VALIDATION ============
@@ -0,0 +1,329 @@
+package com.secondhand.store.service;
+
+import com.secondhand.store.event.ProductChangedEvent;
+import com.secondhand.store.event.ProductSnapshot;
+import com.secondhand.store.repository.ProductRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * "Similar items" for the product detail page, answered from memory.
+ * Each category keeps its available products as price-sorted primitive arrays;
+ * neighbours are found by binary search on price and then ranked by price
+ * distance, condition, brand and keyword overlap.
+ */
+@Component
+public class ProductSimilarityIndex {
+
+    // How many price neighbours are ranked per result slot
+    private static final int CANDIDATES_PER_RESULT = 8;
+    private static final int MIN_CANDIDATES = 40;
+
+    // Score weights, summing to 1
+    private static final double PRICE_WEIGHT = 0.40;
+    private static final double CONDITION_WEIGHT = 0.20;
+    private static final double BRAND_WEIGHT = 0.15;
+    private static final double KEYWORD_WEIGHT = 0.25;
+
+    private final ProductRepository productRepository;
+
+    // product id -> what it is ranked on
+    private final Map<Long, Features> features = new ConcurrentHashMap<>();
+
+    // category id -> its products sorted by price; replaced as a whole on every change
+    private final Map<Long, PriceList> priceLists = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+
+    public ProductSimilarityIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    // ============ MAINTENANCE ============
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        features.clear();
+        priceLists.clear();
+
+        Map<Long, List<Features>> byCategory = new HashMap<>();
+        for (ProductSnapshot product : productRepository.findAvailableSnapshots()) {
+            Features productFeatures = Features.of(product);
+            if (productFeatures != null) {
+                features.put(product.id(), productFeatures);
+                byCategory.computeIfAbsent(productFeatures.categoryId, id -> new ArrayList<>()).add(productFeatures);
+            }
+        }
+        byCategory.forEach((categoryId, products) -> priceLists.put(categoryId, PriceList.of(products)));
+        ready = true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        switch (event.type()) {
+            case CREATED, UPDATED -> index(event.product());
+            case SOLD, DELETED -> remove(event.productId());
+        }
+    }
+
+    public synchronized void index(ProductSnapshot product) {
+        remove(product.id());
+        Features productFeatures = product.available() ? Features.of(product) : null;
+        if (productFeatures != null) {
+            features.put(product.id(), productFeatures);
+            priceLists.merge(productFeatures.categoryId, PriceList.of(List.of(productFeatures)),
+                    (current, added) -> current.with(productFeatures));
+        }
+    }
+
+    public synchronized void remove(Long productId) {
+        Features removed = features.remove(productId);
+        if (removed != null) {
+            priceLists.computeIfPresent(removed.categoryId, (categoryId, current) -> current.without(removed));
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public boolean contains(Long productId) {
+        return features.containsKey(productId);
+    }
+
+    // ============ QUERYING ============
+
+    /**
+     * Ids of the products most similar to the given one, best first.
+     * Empty when the product is not indexed (e.g. sold or unknown).
+     */
+    public List<Long> similarTo(Long productId, int limit) {
+        Features target = features.get(productId);
+        if (target == null || limit <= 0) {
+            return List.of();
+        }
+        PriceList priceList = priceLists.get(target.categoryId);
+        if (priceList == null) {
+            return List.of();
+        }
+
+        // Walk outwards from the target's price, always taking the closer neighbour
+        long[] prices = priceList.prices;
+        long[] ids = priceList.ids;
+        int candidates = Math.max(limit * CANDIDATES_PER_RESULT, MIN_CANDIDATES);
+        int right = lowerBound(prices, target.priceInCents);
+        int left = right - 1;
+
+        // Min-heap on score holding the best `limit` candidates seen so far
+        PriorityQueue<Scored> best = new PriorityQueue<>(limit + 1);
+        for (int taken = 0; taken < candidates && (left >= 0 || right < ids.length); taken++) {
+            int next;
+            if (left < 0) {
+                next = right++;
+            } else if (right >= ids.length) {
+                next = left--;
+            } else if (target.priceInCents - prices[left] <= prices[right] - target.priceInCents) {
+                next = left--;
+            } else {
+                next = right++;
+            }
+
+            if (ids[next] == target.id) {
+                taken--;
+                continue;
+            }
+            Features candidate = features.get(ids[next]);
+            if (candidate == null) {
+                continue; // Removed after this price list was read
+            }
+            best.add(new Scored(candidate.id, score(target, candidate)));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        Scored[] ranked = best.toArray(Scored[]::new);
+        Arrays.sort(ranked, (a, b) -> b.compareTo(a));
+        return Arrays.stream(ranked).map(Scored::id).toList();
+    }
+
+    static double score(Features target, Features candidate) {
+        long reference = Math.max(target.priceInCents, 1);
+        double priceScore = Math.max(0.0, 1.0 - (double) Math.abs(candidate.priceInCents - target.priceInCents) / reference);
+
+        double conditionScore = 1.0 - Math.abs(candidate.condition - target.condition) / 4.0;
+
+        double brandScore = target.brand != null && target.brand.equals(candidate.brand) ? 1.0 : 0.0;
+
+        double keywordScore = jaccard(target.keywords, candidate.keywords);
+
+        return PRICE_WEIGHT * priceScore
+                + CONDITION_WEIGHT * conditionScore
+                + BRAND_WEIGHT * brandScore
+                + KEYWORD_WEIGHT * keywordScore;
+    }
+
+    // ============ INTERNALS ============
+
+    /**
+     * Overlap of two sorted, distinct term arrays
+     */
+    private static double jaccard(String[] a, String[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return 0.0;
+        }
+        int i = 0, j = 0, common = 0;
+        while (i < a.length && j < b.length) {
+            int cmp = a[i].compareTo(b[j]);
+            if (cmp == 0) {
+                common++;
+                i++;
+                j++;
+            } else if (cmp < 0) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) common / (a.length + b.length - common);
+    }
+
+    /**
+     * First index whose price is >= the given one
+     */
+    private static int lowerBound(long[] prices, long price) {
+        int low = 0, high = prices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] < price) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private record Scored(long id, double score) implements Comparable<Scored> {
+        @Override
+        public int compareTo(Scored other) {
+            int byScore = Double.compare(score, other.score);
+            // On equal scores the newer (higher id) product wins
+            return byScore != 0 ? byScore : Long.compare(id, other.id);
+        }
+    }
+
+    static final class Features {
+        final long id;
+        final long categoryId;
+        final long priceInCents;
+        final int condition;
+        final String brand;
+        final String[] keywords;
+
+        private Features(long id, long categoryId, long priceInCents, int condition, String brand, String[] keywords) {
+            this.id = id;
+            this.categoryId = categoryId;
+            this.priceInCents = priceInCents;
+            this.condition = condition;
+            this.brand = brand;
+            this.keywords = keywords;
+        }
+
+        static Features of(ProductSnapshot product) {
+            if (product.categoryId() == null || product.price() == null) {
+                return null;
+            }
+            TreeSet<String> terms = new TreeSet<>(ProductSearchIndex.tokenize(product.keywords()));
+            terms.addAll(ProductSearchIndex.tokenize(product.name()));
+            String brand = product.brand() == null || product.brand().isBlank()
+                    ? null
+                    : product.brand().trim().toLowerCase(Locale.ROOT);
+
+            return new Features(
+                    product.id(),
+                    product.categoryId(),
+                    product.price().movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact(),
+                    product.condition() != null ? product.condition().ordinal() : 2,
+                    brand,
+                    terms.toArray(String[]::new));
+        }
+    }
+
+    /**
+     * Ids of one category in ascending price order, with their prices alongside.
+     * Immutable: changes produce a new copy so readers never need a lock.
+     */
+    static final class PriceList {
+        final long[] ids;
+        final long[] prices;
+
+        private PriceList(long[] ids, long[] prices) {
+            this.ids = ids;
+            this.prices = prices;
+        }
+
+        static PriceList of(List<Features> products) {
+            Features[] sorted = products.toArray(Features[]::new);
+            Arrays.sort(sorted, (a, b) -> a.priceInCents != b.priceInCents
+                    ? Long.compare(a.priceInCents, b.priceInCents)
+                    : Long.compare(a.id, b.id));
+            long[] ids = new long[sorted.length];
+            long[] prices = new long[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                ids[i] = sorted[i].id;
+                prices[i] = sorted[i].priceInCents;
+            }
+            return new PriceList(ids, prices);
+        }
+
+        PriceList with(Features product) {
+            int at = lowerBound(prices, product.priceInCents);
+            long[] newIds = new long[ids.length + 1];
+            long[] newPrices = new long[prices.length + 1];
+            System.arraycopy(ids, 0, newIds, 0, at);
+            System.arraycopy(prices, 0, newPrices, 0, at);
+            newIds[at] = product.id;
+            newPrices[at] = product.priceInCents;
+            System.arraycopy(ids, at, newIds, at + 1, ids.length - at);
+            System.arraycopy(prices, at, newPrices, at + 1, prices.length - at);
+            return new PriceList(newIds, newPrices);
+        }
+
+        /**
+         * Copy without the product, or null (dropping the category) when it was the last one
+         */
+        PriceList without(Features product) {
+            int at = lowerBound(prices, product.priceInCents);
+            while (at < ids.length && prices[at] == product.priceInCents && ids[at] != product.id) {
+                at++;
+            }
+            if (at == ids.length || ids[at] != product.id) {
+                return this;
+            }
+            if (ids.length == 1) {
+                return null;
+            }
+            long[] newIds = new long[ids.length - 1];
+            long[] newPrices = new long[prices.length - 1];
+            System.arraycopy(ids, 0, newIds, 0, at);
+            System.arraycopy(prices, 0, newPrices, 0, at);
+            System.arraycopy(ids, at + 1, newIds, at, ids.length - at - 1);
+            System.arraycopy(prices, at + 1, newPrices, at, prices.length - at - 1);
+            return new PriceList(newIds, newPrices);
+        }
+    }
+}
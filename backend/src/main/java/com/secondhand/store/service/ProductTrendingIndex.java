@@ -0,0 +1,339 @@
+package com.secondhand.store.service;
+
+import com.secondhand.store.event.ProductActivityEvent;
+import com.secondhand.store.event.ProductChangedEvent;
+import com.secondhand.store.event.ProductSnapshot;
+import com.secondhand.store.repository.CartItemRepository;
+import com.secondhand.store.repository.OrderItemRepository;
+import com.secondhand.store.repository.ProductActivityRow;
+import com.secondhand.store.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * "Trending now": popularity from views, cart adds and purchases, decaying
+ * exponentially with a configurable half-life and forgotten entirely once it
+ * falls out of a sliding window of hourly buckets.
+ * <p>
+ * Uses forward decay: an event at time t adds weight * e^(λ(t - landmark)),
+ * which never changes afterwards, so a score is just a sum and ranking never
+ * needs re-scoring as time passes. Each category (and the whole store) keeps its
+ * products in a score-ordered skip list that is updated per event, so the top N
+ * is read straight off the head.
+ */
+@Component
+public class ProductTrendingIndex {
+
+    private static final double VIEW_WEIGHT = 1.0;
+    private static final double CART_ADD_WEIGHT = 5.0;
+    private static final double PURCHASE_WEIGHT = 15.0;
+
+    private static final long BUCKET_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    // The forward-decay landmark is moved before e^(λ(t - landmark)) gets anywhere near overflowing
+    private static final double MAX_EXPONENT = 40.0;
+
+    private final ProductRepository productRepository;
+    private final CartItemRepository cartItemRepository;
+    private final OrderItemRepository orderItemRepository;
+
+    private final double decayPerMilli;
+    private final int windowBuckets;
+
+    // Recording takes the read lock (concurrently, per-product monitors); the
+    // hourly window shift and landmark moves take the write lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Trend> trends = new ConcurrentHashMap<>();
+    private final Map<Long, NavigableSet<Ranked>> byCategory = new ConcurrentHashMap<>();
+    private final NavigableSet<Ranked> overall = new ConcurrentSkipListSet<>();
+
+    private volatile long landmark = System.currentTimeMillis();
+    private volatile boolean ready = false;
+
+    public ProductTrendingIndex(ProductRepository productRepository,
+                                CartItemRepository cartItemRepository,
+                                OrderItemRepository orderItemRepository,
+                                @Value("${store.trending.half-life-hours:6}") double halfLifeHours,
+                                @Value("${store.trending.window-hours:48}") int windowHours) {
+        this.productRepository = productRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.decayPerMilli = Math.log(2) / (halfLifeHours * TimeUnit.HOURS.toMillis(1));
+        this.windowBuckets = Math.max(windowHours, 1);
+    }
+
+    // ============ MAINTENANCE ============
+
+    /**
+     * Starts from the available products and replays the cart adds and purchases
+     * still inside the window. Views are only kept in memory and start from zero.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<ProductSnapshot> products = productRepository.findAvailableSnapshots();
+        LocalDateTime since = LocalDateTime.now().minusHours(windowBuckets);
+        List<ProductActivityRow> cartAdds = cartItemRepository.findCartAddsSince(since);
+        List<ProductActivityRow> purchases = orderItemRepository.findPurchasesSince(since);
+
+        lock.writeLock().lock();
+        try {
+            trends.clear();
+            byCategory.clear();
+            overall.clear();
+            landmark = System.currentTimeMillis();
+            for (ProductSnapshot product : products) {
+                track(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        for (ProductActivityRow row : cartAdds) {
+            record(row.getProductId(), CART_ADD_WEIGHT * quantity(row), toInstant(row.getCreatedAt()));
+        }
+        for (ProductActivityRow row : purchases) {
+            record(row.getProductId(), PURCHASE_WEIGHT * quantity(row), toInstant(row.getCreatedAt()));
+        }
+        ready = true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.readLock().lock();
+        try {
+            switch (event.type()) {
+                case CREATED, UPDATED -> {
+                    if (event.product().available()) {
+                        track(event.product());
+                    } else {
+                        untrack(event.productId());
+                    }
+                }
+                case SOLD, DELETED -> untrack(event.productId());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductActivity(ProductActivityEvent event) {
+        double weight = switch (event.type()) {
+            case VIEW -> VIEW_WEIGHT;
+            case CART_ADD -> CART_ADD_WEIGHT;
+            case PURCHASE -> PURCHASE_WEIGHT;
+        };
+        record(event.productId(), weight * Math.max(event.quantity(), 1), event.occurredAt());
+    }
+
+    /**
+     * Drops buckets that slid out of the window and, every couple of weeks of
+     * uptime, moves the decay landmark forward.
+     */
+    @Scheduled(fixedDelayString = "${store.trending.advance-interval-ms:60000}")
+    public void advance() {
+        long now = System.currentTimeMillis();
+        long oldestBucket = now / BUCKET_MILLIS - windowBuckets + 1;
+
+        lock.writeLock().lock();
+        try {
+            double rescale = 1.0;
+            if (decayPerMilli * (now - landmark) > MAX_EXPONENT) {
+                rescale = Math.exp(-decayPerMilli * (now - landmark));
+                landmark = now;
+            }
+            for (Trend trend : trends.values()) {
+                double total = 0;
+                for (int slot = 0; slot < windowBuckets; slot++) {
+                    if (trend.bucketIds[slot] < oldestBucket) {
+                        trend.buckets[slot] = 0;
+                    }
+                    trend.buckets[slot] *= rescale;
+                    total += trend.buckets[slot];
+                }
+                // Summing afresh also clears accumulated floating-point drift
+                if (total != trend.total) {
+                    trend.total = total;
+                    reposition(trend);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ============ QUERYING ============
+
+    /**
+     * Ids of the top trending available products, in one category or (null) overall
+     */
+    public List<Long> topTrending(Long categoryId, int limit) {
+        NavigableSet<Ranked> ranking = categoryId == null ? overall : byCategory.get(categoryId);
+        if (ranking == null || limit <= 0) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>(limit);
+        Iterator<Ranked> iterator = ranking.iterator();
+        while (iterator.hasNext() && ids.size() < limit) {
+            ids.add(iterator.next().productId);
+        }
+        return ids;
+    }
+
+    /**
+     * The product's current decayed score, 0 when it has no recent activity
+     */
+    public double score(Long productId) {
+        Trend trend = trends.get(productId);
+        if (trend == null) {
+            return 0.0;
+        }
+        synchronized (trend) {
+            return trend.total * Math.exp(-decayPerMilli * (System.currentTimeMillis() - landmark));
+        }
+    }
+
+    // ============ INTERNALS ============
+
+    private void record(Long productId, double weight, Instant occurredAt) {
+        long at = occurredAt != null ? occurredAt.toEpochMilli() : System.currentTimeMillis();
+        long bucket = at / BUCKET_MILLIS;
+        if (bucket <= System.currentTimeMillis() / BUCKET_MILLIS - windowBuckets) {
+            return; // Already outside the window
+        }
+
+        lock.readLock().lock();
+        try {
+            Trend trend = trends.get(productId);
+            if (trend == null) {
+                return; // Not available (or not known yet)
+            }
+            double mass = weight * Math.exp(decayPerMilli * (at - landmark));
+            synchronized (trend) {
+                if (trend.removed) {
+                    return; // Sold or deleted while this event was on its way
+                }
+                int slot = (int) Math.floorMod(bucket, (long) windowBuckets);
+                if (trend.bucketIds[slot] != bucket) {
+                    // The slot still holds an hour that has left the window
+                    trend.total -= trend.buckets[slot];
+                    trend.buckets[slot] = 0;
+                    trend.bucketIds[slot] = bucket;
+                }
+                trend.buckets[slot] += mass;
+                trend.total += mass;
+                reposition(trend);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void track(ProductSnapshot product) {
+        if (product.categoryId() == null) {
+            return;
+        }
+        Trend trend = trends.computeIfAbsent(product.id(), id -> new Trend(id, product.categoryId(), windowBuckets));
+        synchronized (trend) {
+            if (trend.categoryId != product.categoryId()) {
+                unrank(trend);
+                trend.categoryId = product.categoryId();
+                reposition(trend);
+            }
+        }
+    }
+
+    private void untrack(Long productId) {
+        Trend trend = trends.remove(productId);
+        if (trend != null) {
+            synchronized (trend) {
+                trend.removed = true;
+                unrank(trend);
+            }
+        }
+    }
+
+    /**
+     * Re-inserts the product under its current total; callers hold its monitor
+     */
+    private void reposition(Trend trend) {
+        unrank(trend);
+        if (trend.total > 0) {
+            trend.ranked = new Ranked(trend.total, trend.productId);
+            overall.add(trend.ranked);
+            byCategory.computeIfAbsent(trend.categoryId, id -> new ConcurrentSkipListSet<>()).add(trend.ranked);
+        }
+    }
+
+    private void unrank(Trend trend) {
+        if (trend.ranked != null) {
+            overall.remove(trend.ranked);
+            NavigableSet<Ranked> category = byCategory.get(trend.categoryId);
+            if (category != null) {
+                category.remove(trend.ranked);
+            }
+            trend.ranked = null;
+        }
+    }
+
+    private static int quantity(ProductActivityRow row) {
+        return row.getQuantity() != null ? Math.max(row.getQuantity(), 1) : 1;
+    }
+
+    private static Instant toInstant(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant() : null;
+    }
+
+    /**
+     * Activity of one product: forward-decayed mass per hourly bucket, in a ring
+     */
+    private static final class Trend {
+        final long productId;
+        long categoryId;
+        final double[] buckets;
+        final long[] bucketIds;
+        double total;
+        Ranked ranked;
+        boolean removed;
+
+        Trend(long productId, long categoryId, int windowBuckets) {
+            this.productId = productId;
+            this.categoryId = categoryId;
+            this.buckets = new double[windowBuckets];
+            this.bucketIds = new long[windowBuckets];
+        }
+    }
+
+    /**
+     * Entry of a ranking: highest score first, newer product first on ties
+     */
+    private record Ranked(double score, long productId) implements Comparable<Ranked> {
+        @Override
+        public int compareTo(Ranked other) {
+            int byScore = Double.compare(other.score, score);
+            return byScore != 0 ? byScore : Long.compare(other.productId, productId);
+        }
+    }
+}
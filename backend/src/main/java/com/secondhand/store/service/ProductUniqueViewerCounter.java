@@ -0,0 +1,158 @@
+package com.secondhand.store.service;
+
+import com.secondhand.store.entity.ProductDailyViewers;
+import com.secondhand.store.repository.ProductDailyViewersRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Approximate unique viewers per product and day. Each node feeds views into
+ * in-memory HyperLogLog sketches and periodically merges them into
+ * product_daily_viewers. Because merging is idempotent, any number of nodes can
+ * write the same (product, day) row and a retried flush never double counts.
+ */
+@Component
+public class ProductUniqueViewerCounter {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductUniqueViewerCounter.class);
+
+    private static final String INSERT_SQL = "INSERT INTO product_daily_viewers (product_id, view_date, sketch) " +
+            "VALUES (?, ?, ?) ON CONFLICT (product_id, view_date) DO NOTHING";
+    private static final String LOCK_SQL = "SELECT sketch FROM product_daily_viewers " +
+            "WHERE product_id = ? AND view_date = ? FOR UPDATE";
+    private static final String UPDATE_SQL = "UPDATE product_daily_viewers SET sketch = ? " +
+            "WHERE product_id = ? AND view_date = ?";
+
+    private final ProductDailyViewersRepository dailyViewersRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Sketches not yet merged into the table. Only touched inside ConcurrentHashMap
+    // compute calls, which serialize access per (product, day).
+    private final Map<SketchKey, HyperLogLog> pending = new ConcurrentHashMap<>();
+
+    public ProductUniqueViewerCounter(ProductDailyViewersRepository dailyViewersRepository,
+                                      JdbcTemplate jdbcTemplate,
+                                      TransactionTemplate transactionTemplate) {
+        this.dailyViewersRepository = dailyViewersRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * viewerKey identifies the viewer (user id, or a session/device id for guests)
+     */
+    public void recordViewer(Long productId, String viewerKey) {
+        if (viewerKey == null || viewerKey.isBlank()) {
+            return;
+        }
+        long hash = HyperLogLog.hash(viewerKey.getBytes(StandardCharsets.UTF_8));
+        pending.compute(new SketchKey(productId, LocalDate.now()), (key, sketch) -> {
+            HyperLogLog target = sketch != null ? sketch : new HyperLogLog();
+            target.offerHash(hash);
+            return target;
+        });
+    }
+
+    // ============ QUERYING ============
+
+    /**
+     * Distinct viewers over the whole date range (not the sum of the daily counts)
+     */
+    public long uniqueViewers(Long productId, LocalDate from, LocalDate to) {
+        HyperLogLog union = new HyperLogLog();
+        for (HyperLogLog day : dailySketches(productId, from, to).values()) {
+            union.merge(day);
+        }
+        return union.cardinality();
+    }
+
+    public SortedMap<LocalDate, Long> dailyUniqueViewers(Long productId, LocalDate from, LocalDate to) {
+        SortedMap<LocalDate, Long> counts = new TreeMap<>();
+        dailySketches(productId, from, to).forEach((day, sketch) -> counts.put(day, sketch.cardinality()));
+        return counts;
+    }
+
+    /**
+     * Stored sketches with this node's unflushed views merged in
+     */
+    private SortedMap<LocalDate, HyperLogLog> dailySketches(Long productId, LocalDate from, LocalDate to) {
+        SortedMap<LocalDate, HyperLogLog> sketches = new TreeMap<>();
+        for (ProductDailyViewers day : dailyViewersRepository.findByProductAndDays(productId, from, to)) {
+            sketches.put(day.getViewDate(), HyperLogLog.fromBytes(day.getSketch()));
+        }
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            LocalDate date = day;
+            pending.computeIfPresent(new SketchKey(productId, day), (key, sketch) -> {
+                sketches.computeIfAbsent(date, d -> new HyperLogLog()).merge(sketch);
+                return sketch;
+            });
+        }
+        return sketches;
+    }
+
+    // ============ FLUSHING ============
+
+    @Scheduled(fixedDelayString = "${store.viewers.flush-interval-ms:60000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Merges every pending sketch into its row and returns how many rows were written.
+     * A sketch that fails to merge is kept for the next flush; the others still go out.
+     */
+    public synchronized int flush() {
+        int written = 0;
+        for (SketchKey key : new ArrayList<>(pending.keySet())) {
+            HyperLogLog sketch = pending.remove(key);
+            if (sketch == null) {
+                continue;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> mergeIntoRow(key, sketch));
+                written++;
+            } catch (RuntimeException e) {
+                // Put it back for the next flush; merging is idempotent, so nothing is counted twice
+                pending.merge(key, sketch, (current, failed) -> {
+                    current.merge(failed);
+                    return current;
+                });
+                log.warn("Flushing unique viewers of product {} on {} failed, will retry: {}",
+                        key.productId(), key.day(), e.getMessage());
+            }
+        }
+        return written;
+    }
+
+    private void mergeIntoRow(SketchKey key, HyperLogLog sketch) {
+        int inserted = jdbcTemplate.update(INSERT_SQL, key.productId(), key.day(), sketch.toBytes());
+        if (inserted == 0) {
+            // Row exists: merge under a row lock so concurrent nodes don't overwrite each other
+            byte[] stored = jdbcTemplate.queryForObject(LOCK_SQL, byte[].class, key.productId(), key.day());
+            HyperLogLog merged = HyperLogLog.fromBytes(stored);
+            merged.merge(sketch);
+            jdbcTemplate.update(UPDATE_SQL, merged.toBytes(), key.productId(), key.day());
+        }
+    }
+
+    private record SketchKey(long productId, LocalDate day) {}
+}
@@ -0,0 +1,241 @@
+package com.secondhand.store.service;
+
+import com.secondhand.store.entity.DailyCategorySales;
+import com.secondhand.store.entity.DailySales;
+import com.secondhand.store.entity.DailySellerSales;
+import com.secondhand.store.repository.DailyCategorySalesRepository;
+import com.secondhand.store.repository.DailySalesRepository;
+import com.secondhand.store.repository.DailySellerProductSalesRepository;
+import com.secondhand.store.repository.DailySellerSalesRepository;
+import com.secondhand.store.repository.OrderRepository;
+import com.secondhand.store.repository.SalesTotalsRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Daily sales rollups: delivered orders per day, and their items per day and
+ * category, per day and seller, and per day, seller and product, keyed by order
+ * date like the raw sales queries.
+ * <p>
+ * Orders are added when they are marked delivered and taken out again when they
+ * are refunded, in the same transaction. The backfill recomputes whole days from
+ * the orders table; it runs on startup when the rollups are empty, and nightly over
+ * the last few days plus the order dates of any order changed in those days, so
+ * edits to old orders made outside these paths are picked up too.
+ */
+@Service
+@Transactional
+public class SalesRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesRollupService.class);
+
+    // Advisory lock key: deliveries hold it shared, a backfill exclusively, so a
+    // backfill never recomputes a day while a delivery for it is in flight
+    private static final long ROLLUP_LOCK = 0x5A1E5_4011L;
+
+    // Days recomputed per backfill transaction
+    private static final int BACKFILL_CHUNK_DAYS = 31;
+
+    private final DailySalesRepository dailySalesRepository;
+    private final DailyCategorySalesRepository dailyCategorySalesRepository;
+    private final DailySellerSalesRepository dailySellerSalesRepository;
+    private final DailySellerProductSalesRepository dailySellerProductSalesRepository;
+    private final OrderRepository orderRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int backfillDays;
+
+    public SalesRollupService(DailySalesRepository dailySalesRepository,
+                              DailyCategorySalesRepository dailyCategorySalesRepository,
+                              DailySellerSalesRepository dailySellerSalesRepository,
+                              DailySellerProductSalesRepository dailySellerProductSalesRepository,
+                              OrderRepository orderRepository,
+                              JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${store.sales-rollup.backfill-days:7}") int backfillDays) {
+        this.dailySalesRepository = dailySalesRepository;
+        this.dailyCategorySalesRepository = dailyCategorySalesRepository;
+        this.dailySellerSalesRepository = dailySellerSalesRepository;
+        this.dailySellerProductSalesRepository = dailySellerProductSalesRepository;
+        this.orderRepository = orderRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.backfillDays = Math.max(backfillDays, 1);
+    }
+
+    // ============ MAINTENANCE ============
+
+    /**
+     * Adds just-delivered orders to the rollups, one statement per rollup table.
+     * Must run in the transaction that marks them delivered, and only once per order.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDelivered(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        addOrders(orderIds, 1);
+    }
+
+    /**
+     * Takes refunded orders back out of the rollups. Must run in the transaction that
+     * moves them from DELIVERED to REFUNDED, and only once per order.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordRefunded(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        addOrders(orderIds, -1);
+    }
+
+    /**
+     * Recomputes the rollups of the given days (inclusive) from the orders table,
+     * one transaction per chunk of days, so deliveries only ever wait for one chunk
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void backfill(LocalDate from, LocalDate to) {
+        for (LocalDate chunkStart = from; !chunkStart.isAfter(to); chunkStart = chunkStart.plusDays(BACKFILL_CHUNK_DAYS)) {
+            LocalDate chunkEnd = chunkStart.plusDays(BACKFILL_CHUNK_DAYS - 1);
+            LocalDate last = chunkEnd.isAfter(to) ? to : chunkEnd;
+            LocalDate first = chunkStart;
+            transactionTemplate.executeWithoutResult(status -> recomputeDays(first, last));
+        }
+    }
+
+    // Not transactional: each chunk of the backfill commits on its own
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void backfillIfEmpty() {
+        if (dailySalesRepository.count() > 0) {
+            return;
+        }
+        orderRepository.findFirstDeliveredOrderDate().ifPresent(first -> {
+            log.info("Sales rollups are empty, backfilling from {}", first.toLocalDate());
+            backfill(first.toLocalDate(), LocalDate.now());
+        });
+    }
+
+    @Scheduled(cron = "${store.sales-rollup.backfill-cron:0 30 3 * * *}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void scheduledBackfill() {
+        try {
+            LocalDate windowStart = LocalDate.now().minusDays(backfillDays - 1);
+            backfill(windowStart, LocalDate.now());
+            // Older orders changed within the window, e.g. refunded weeks after they were placed
+            for (LocalDate day : orderRepository.findOrderDatesChangedSince(
+                    windowStart.atStartOfDay(), windowStart.atStartOfDay())) {
+                backfill(day, day);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Sales rollup backfill failed: {}", e.getMessage());
+        }
+    }
+
+    private void addOrders(Collection<Long> orderIds, int sign) {
+        jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock_shared(?)", ROLLUP_LOCK);
+        dailySalesRepository.addOrders(orderIds, sign);
+        dailyCategorySalesRepository.addOrders(orderIds, sign);
+        dailySellerSalesRepository.addOrders(orderIds, sign);
+        dailySellerProductSalesRepository.addOrders(orderIds, sign);
+    }
+
+    private void recomputeDays(LocalDate from, LocalDate to) {
+        jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(?)", ROLLUP_LOCK);
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime before = to.plusDays(1).atStartOfDay();
+
+        dailySalesRepository.deleteDays(from, to);
+        dailySalesRepository.insertDays(start, before);
+        dailyCategorySalesRepository.deleteDays(from, to);
+        dailyCategorySalesRepository.insertDays(start, before);
+        dailySellerSalesRepository.deleteDays(from, to);
+        dailySellerSalesRepository.insertDays(start, before);
+        dailySellerProductSalesRepository.deleteDays(from, to);
+        dailySellerProductSalesRepository.insertDays(start, before);
+    }
+
+    // ============ SALES REPORTS ============
+
+    /**
+     * Same result as OrderRepository.getTotalSalesBetweenDates (both ends inclusive),
+     * but whole days in the range are read from the daily rollup; only the partial
+     * days at either edge touch the orders table. Zero rather than null when nothing sold.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal getTotalSalesBetweenDates(LocalDateTime startDate, LocalDateTime endDate) {
+        LocalDate firstFullDay = startDate.toLocalTime().equals(LocalTime.MIDNIGHT)
+                ? startDate.toLocalDate()
+                : startDate.toLocalDate().plusDays(1);
+        // The end is inclusive at microsecond precision: a day ending at 23:59:59.999999 is whole
+        LocalDate lastFullDay = endDate.plusNanos(1_000).toLocalDate().minusDays(1);
+
+        if (firstFullDay.isAfter(lastFullDay)) {
+            return orZero(orderRepository.getTotalSalesBetweenDates(startDate, endDate));
+        }
+
+        BigDecimal total = dailySalesRepository.sumTotalAmount(firstFullDay, lastFullDay);
+        if (startDate.isBefore(firstFullDay.atStartOfDay())) {
+            total = total.add(orZero(orderRepository.getTotalSalesFrom(startDate, firstFullDay.atStartOfDay())));
+        }
+        LocalDateTime afterFullDays = lastFullDay.plusDays(1).atStartOfDay();
+        if (!endDate.isBefore(afterFullDays)) {
+            total = total.add(orZero(orderRepository.getTotalSalesBetweenDates(afterFullDays, endDate)));
+        }
+        return total;
+    }
+
+    /**
+     * Orders, items and sales per day, for charts and year-over-year comparisons
+     */
+    @Transactional(readOnly = true)
+    public List<DailySales> getDailySales(LocalDate from, LocalDate to) {
+        return dailySalesRepository.findBySalesDateBetweenOrderBySalesDate(from, to);
+    }
+
+    /**
+     * Units and revenue per category over whole days, highest revenue first
+     */
+    @Transactional(readOnly = true)
+    public List<SalesTotalsRow> getSalesByCategory(LocalDate from, LocalDate to) {
+        return dailyCategorySalesRepository.sumByCategory(from, to);
+    }
+
+    @Transactional(readOnly = true)
+    public List<DailyCategorySales> getDailyCategorySales(Long categoryId, LocalDate from, LocalDate to) {
+        return dailyCategorySalesRepository.findByCategoryAndDays(categoryId, from, to);
+    }
+
+    /**
+     * Units and revenue per seller over whole days, highest revenue first
+     */
+    @Transactional(readOnly = true)
+    public List<SalesTotalsRow> getSalesBySeller(LocalDate from, LocalDate to) {
+        return dailySellerSalesRepository.sumBySeller(from, to);
+    }
+
+    @Transactional(readOnly = true)
+    public List<DailySellerSales> getDailySellerSales(Long sellerId, LocalDate from, LocalDate to) {
+        return dailySellerSalesRepository.findBySellerAndDays(sellerId, from, to);
+    }
+
+    private static BigDecimal orZero(BigDecimal amount) {
+        return amount != null ? amount : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,22 @@
+package com.secondhand.store.service;
+
+/**
+ * Backend used to answer product text searches (store.search.mode)
+ */
+public enum SearchMode {
+
+    /**
+     * In-process inverted index, see ProductSearchIndex
+     */
+    INDEX,
+
+    /**
+     * Generated tsvector column with a GIN index, ranked by ts_rank
+     */
+    POSTGRES,
+
+    /**
+     * pg_trgm GIN indexes: substring and typo-tolerant name matching
+     */
+    TRIGRAM
+}
@@ -0,0 +1,98 @@
+package com.secondhand.store.service;
+
+import com.secondhand.store.dto.ProductSales;
+import com.secondhand.store.dto.SellerSalesSummary;
+import com.secondhand.store.entity.DailySellerSales;
+import com.secondhand.store.repository.DailySellerProductSalesRepository;
+import com.secondhand.store.repository.DailySellerSalesRepository;
+import com.secondhand.store.repository.OrderItemRepository;
+import com.secondhand.store.repository.SellerOrderItemView;
+import com.secondhand.store.repository.SellerSalesTotals;
+import com.secondhand.store.repository.UserRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Seller dashboard. Totals and best sellers come from the daily seller rollups
+ * (see SalesRollupService), so their cost depends on the number of days and
+ * products, not on how many orders the seller has; sold items are paged flat rows.
+ */
+@Service
+@Transactional(readOnly = true)
+public class SellerAnalyticsService {
+
+    private final DailySellerSalesRepository dailySellerSalesRepository;
+    private final DailySellerProductSalesRepository dailySellerProductSalesRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final UserRepository userRepository;
+
+    public SellerAnalyticsService(DailySellerSalesRepository dailySellerSalesRepository,
+                                  DailySellerProductSalesRepository dailySellerProductSalesRepository,
+                                  OrderItemRepository orderItemRepository,
+                                  UserRepository userRepository) {
+        this.dailySellerSalesRepository = dailySellerSalesRepository;
+        this.dailySellerProductSalesRepository = dailySellerProductSalesRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.userRepository = userRepository;
+    }
+
+    // ============ SELLER SALES ============
+
+    /**
+     * Delivered orders, units, revenue and the top products of a seller between two days, inclusive
+     */
+    public SellerSalesSummary getSellerSummary(Long sellerId, LocalDate from, LocalDate to, int topProducts) throws Exception {
+        if (!userRepository.existsById(sellerId)) {
+            throw new Exception("Seller not found with ID: " + sellerId);
+        }
+        SellerSalesTotals totals = dailySellerSalesRepository.sumForSeller(sellerId, from, to);
+        long units = totals.getItemCount();
+        return new SellerSalesSummary(
+                sellerId, from, to,
+                totals.getOrderCount(),
+                units,
+                totals.getRevenue(),
+                averagePrice(totals.getRevenue(), units),
+                getTopProducts(sellerId, from, to, topProducts));
+    }
+
+    /**
+     * The seller's best selling products by revenue between two days, inclusive
+     */
+    public List<ProductSales> getTopProducts(Long sellerId, LocalDate from, LocalDate to, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        return dailySellerProductSalesRepository.findTopProducts(sellerId, from, to, Limit.of(limit)).stream()
+                .map(row -> new ProductSales(row.getProductId(), row.getProductName(), row.getItemCount(),
+                        row.getRevenue(), averagePrice(row.getRevenue(), row.getItemCount())))
+                .toList();
+    }
+
+    /**
+     * Orders, units and revenue per day, for the seller's sales chart
+     */
+    public List<DailySellerSales> getDailySales(Long sellerId, LocalDate from, LocalDate to) {
+        return dailySellerSalesRepository.findBySellerAndDays(sellerId, from, to);
+    }
+
+    /**
+     * The seller's sold items (any order status) between two days, inclusive, newest first
+     */
+    public Page<SellerOrderItemView> getSoldItems(Long sellerId, LocalDate from, LocalDate to, int page, int size) {
+        return orderItemRepository.findSellerItems(sellerId, from.atStartOfDay(), to.plusDays(1).atStartOfDay(),
+                PageRequest.of(page, size));
+    }
+
+    private static BigDecimal averagePrice(BigDecimal revenue, long units) {
+        return units > 0 ? revenue.divide(BigDecimal.valueOf(units), 2, RoundingMode.HALF_UP) : BigDecimal.ZERO;
+    }
+}
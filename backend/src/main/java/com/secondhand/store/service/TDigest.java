@@ -0,0 +1,214 @@
+package com.secondhand.store.service;
+
+import java.util.Arrays;
+
+/**
+ * Merging t-digest: a quantile sketch of a stream of values in at most about
+ * compression centroids, whatever the number of values.
+ * <p>
+ * New values are buffered and periodically merged into the sorted centroids.
+ * Centroid sizes follow the arcsine scale k(q) = compression / 2π · asin(2q - 1):
+ * a centroid may only span one unit of k. The scale is steep near q = 0 and 1, so
+ * centroids are small at the tails and the extreme quantiles stay accurate, while
+ * the middle is summarised more coarsely. k covers compression / 2 units in all,
+ * which bounds the merged centroids to between compression / 2 and compression.
+ * Not thread-safe.
+ */
+public final class TDigest {
+
+    private final double compression;
+
+    // Merged centroids, sorted by mean
+    private double[] means;
+    private double[] weights;
+    private int centroids;
+
+    // Values not merged yet
+    private final double[] bufferValues;
+    private final double[] bufferWeights;
+    private int buffered;
+
+    private double totalWeight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest(double compression) {
+        this.compression = compression;
+        int capacity = (int) Math.ceil(compression) + 10;
+        this.means = new double[capacity];
+        this.weights = new double[capacity];
+        this.bufferValues = new double[(int) (compression * 5)];
+        this.bufferWeights = new double[bufferValues.length];
+    }
+
+    // ============ UPDATING ============
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    public void add(double value, double weight) {
+        if (Double.isNaN(value) || weight <= 0) {
+            throw new IllegalArgumentException("Cannot add " + value + " with weight " + weight);
+        }
+        if (buffered == bufferValues.length) {
+            compress();
+        }
+        bufferValues[buffered] = value;
+        bufferWeights[buffered] = weight;
+        buffered++;
+        totalWeight += weight;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Folds another digest's centroids into this one
+     */
+    public void merge(TDigest other) {
+        other.compress();
+        double[] otherMeans = Arrays.copyOf(other.means, other.centroids);
+        double[] otherWeights = Arrays.copyOf(other.weights, other.centroids);
+        for (int i = 0; i < otherMeans.length; i++) {
+            add(otherMeans[i], otherWeights[i]);
+        }
+        if (other.totalWeight > 0) {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+    }
+
+    // ============ ESTIMATING ============
+
+    public double count() {
+        return totalWeight;
+    }
+
+    /**
+     * Centroids the digest is summarised in, once buffered values are merged
+     */
+    public int centroidCount() {
+        compress();
+        return centroids;
+    }
+
+    /**
+     * The value below which the fraction q of the weight lies, NaN when empty.
+     * Interpolates linearly between centroid centres, and towards min / max at the ends.
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1: " + q);
+        }
+        compress();
+        if (centroids == 0) {
+            return Double.NaN;
+        }
+        if (centroids == 1 || q == 0) {
+            return centroids == 1 ? means[0] : min;
+        }
+        if (q == 1) {
+            return max;
+        }
+
+        double index = q * totalWeight;
+        double firstCenter = weights[0] / 2;
+        if (index < firstCenter) {
+            return min + (means[0] - min) * index / firstCenter;
+        }
+
+        double cumulative = firstCenter;
+        for (int i = 0; i < centroids - 1; i++) {
+            double gap = (weights[i] + weights[i + 1]) / 2;
+            if (cumulative + gap > index) {
+                return means[i] + (means[i + 1] - means[i]) * (index - cumulative) / gap;
+            }
+            cumulative += gap;
+        }
+
+        int last = centroids - 1;
+        double remaining = totalWeight - cumulative;
+        return means[last] + (max - means[last]) * Math.min((index - cumulative) / remaining, 1.0);
+    }
+
+    // ============ INTERNALS ============
+
+    /**
+     * Sorts the buffer into the centroids and re-merges neighbours while each
+     * centroid spans at most one unit of the scale function
+     */
+    private void compress() {
+        if (buffered == 0) {
+            return;
+        }
+
+        int n = centroids + buffered;
+        double[] values = new double[n];
+        double[] valueWeights = new double[n];
+        System.arraycopy(means, 0, values, 0, centroids);
+        System.arraycopy(weights, 0, valueWeights, 0, centroids);
+        System.arraycopy(bufferValues, 0, values, centroids, buffered);
+        System.arraycopy(bufferWeights, 0, valueWeights, centroids, buffered);
+        sortByValue(values, valueWeights);
+        buffered = 0;
+
+        centroids = 0;
+        double mergedWeight = 0;
+        // Cumulative weight the current centroid may reach: one unit of k past its start
+        double weightLimit = totalWeight * nextQuantileLimit(0);
+        double mean = values[0];
+        double weight = valueWeights[0];
+        for (int i = 1; i < n; i++) {
+            double proposed = weight + valueWeights[i];
+            if (mergedWeight + proposed <= weightLimit) {
+                mean += (values[i] - mean) * valueWeights[i] / proposed;
+                weight = proposed;
+            } else {
+                append(mean, weight);
+                mergedWeight += weight;
+                weightLimit = totalWeight * nextQuantileLimit(mergedWeight / totalWeight);
+                mean = values[i];
+                weight = valueWeights[i];
+            }
+        }
+        append(mean, weight);
+    }
+
+    /**
+     * The quantile one unit of k(q) = compression / 2π · asin(2q - 1) above q
+     */
+    private double nextQuantileLimit(double q) {
+        double k = compression / (2 * Math.PI) * Math.asin(2 * Math.min(Math.max(q, 0), 1) - 1);
+        double angle = (k + 1) * 2 * Math.PI / compression;
+        return (Math.sin(Math.min(angle, Math.PI / 2)) + 1) / 2;
+    }
+
+    private void append(double mean, double weight) {
+        if (centroids == means.length) {
+            means = Arrays.copyOf(means, centroids * 2);
+            weights = Arrays.copyOf(weights, centroids * 2);
+        }
+        means[centroids] = mean;
+        weights[centroids] = weight;
+        centroids++;
+    }
+
+    /**
+     * Sorts both arrays together by value
+     */
+    private static void sortByValue(double[] values, double[] valueWeights) {
+        Integer[] order = new Integer[values.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+        double[] sortedValues = new double[values.length];
+        double[] sortedWeights = new double[values.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedValues[i] = values[order[i]];
+            sortedWeights[i] = valueWeights[order[i]];
+        }
+        System.arraycopy(sortedValues, 0, values, 0, values.length);
+        System.arraycopy(sortedWeights, 0, valueWeights, 0, values.length);
+    }
+}
@@ -1,6 +1,8 @@
 package com.secondhand.store.service;
 
+import com.secondhand.store.dto.ScoredResult;
 import com.secondhand.store.entity.User;
+import com.secondhand.store.repository.SimilarityMatch;
 import com.secondhand.store.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -8,7 +10,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -165,6 +170,18 @@ public class UserService {
         return userRepository.searchUsersByName(searchTerm);
     }
 
+    public List<ScoredResult<User>> fuzzySearchUsersByName(String searchTerm, int limit) {
+        List<SimilarityMatch> matches = userRepository.findFuzzyNameMatches(searchTerm, limit);
+        Map<Long, User> usersById = userRepository.findAllById(
+                        matches.stream().map(SimilarityMatch::getId).toList()).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        return matches.stream()
+                .filter(match -> usersById.containsKey(match.getId()))
+                .map(match -> new ScoredResult<>(usersById.get(match.getId()), match.getScore()))
+                .toList();
+    }
+
     public long getActiveUserCountByRole(User.Role role) {
         return userRepository.countActiveUsersByRole(role);
     }
@@ -0,0 +1,38 @@
+-- Search support objects that Hibernate does not generate.
+-- Runs after Hibernate has created the schema (see spring.jpa.defer-datasource-initialization).
+
+-- Weighted full text document: name > brand, keywords > description
+ALTER TABLE products ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', coalesce(name, '')), 'A') ||
+        setweight(to_tsvector('english', coalesce(brand, '')), 'B') ||
+        setweight(to_tsvector('english', coalesce(keywords, '')), 'B') ||
+        setweight(to_tsvector('english', coalesce(description, '')), 'C')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_products_search_vector
+    ON products USING GIN (search_vector);
+
+-- Name-only search
+CREATE INDEX IF NOT EXISTS idx_products_name_tsv
+    ON products USING GIN (to_tsvector('english', name));
+
+-- Trigram indexes. The expressions match what the derived queries generate
+-- (upper(col) LIKE upper(?) for ContainingIgnoreCase, upper(col) = upper(?) for IgnoreCase)
+-- and what UserRepository.searchUsersByName uses (lower(col) LIKE ...).
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_products_name_trgm
+    ON products USING GIN (upper(name) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_products_brand_trgm
+    ON products USING GIN (upper(brand) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_products_location_city_upper
+    ON products (upper(location_city));
+
+CREATE INDEX IF NOT EXISTS idx_users_first_name_trgm
+    ON users USING GIN (lower(first_name) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_users_last_name_trgm
+    ON users USING GIN (lower(last_name) gin_trgm_ops);
@@ -0,0 +1,138 @@
+package com.secondhand.store;
+
+import com.secondhand.store.entity.Category;
+import com.secondhand.store.entity.Order;
+import com.secondhand.store.entity.OrderItem;
+import com.secondhand.store.entity.Product;
+import com.secondhand.store.entity.User;
+import com.secondhand.store.repository.OrderRepository;
+import com.secondhand.store.service.ProductService;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Insert throughput with JDBC batching on (the configured batch size) and off
+ * (batch size 1, one round trip per row as with IDENTITY ids), for orders with
+ * many items and for a seller importing listings.
+ * Run with: mvn test -Dtest=BulkInsertBenchmarkTests -Dbenchmark=true
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BulkInsertBenchmarkTests {
+
+    private static final int ORDERS = 20;
+    private static final int ITEMS_PER_ORDER = 100;
+    private static final int LISTINGS = 2000;
+    private static final int RUNS = 5;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private TestData testData;
+
+    private Category category;
+    private User seller;
+    private User buyer;
+    private List<Product> products;
+    private int run;
+
+    @BeforeEach
+    void createData() throws Exception {
+        category = testData.category("Bulk Benchmark");
+        seller = testData.seller("bulk");
+        buyer = testData.buyer("bulk");
+        products = productService.importProducts(seller.getId(), newListings(ITEMS_PER_ORDER));
+    }
+
+    @Test
+    void ordersWithManyItems() {
+        int rows = ORDERS * (ITEMS_PER_ORDER + 1);
+        report("orders x" + ITEMS_PER_ORDER + " items", rows, batchSize -> inTransaction(batchSize, () -> {
+            List<Order> orders = new ArrayList<>(ORDERS);
+            for (int i = 0; i < ORDERS; i++) {
+                Order order = new Order(buyer, "BULK-" + System.nanoTime() + "-" + i, BigDecimal.TEN, "1 Bench Street");
+                for (Product product : products) {
+                    order.addOrderItem(new OrderItem(order, product, 1));
+                }
+                orders.add(order);
+            }
+            orderRepository.saveAll(orders);
+        }));
+    }
+
+    @Test
+    void sellerListingImport() {
+        // Each listing is a product row, its stats row and two image rows
+        int rows = LISTINGS * 4;
+        report(LISTINGS + " listings", rows, batchSize -> inTransaction(batchSize, () -> {
+            try {
+                assertEquals(LISTINGS, productService.importProducts(seller.getId(), newListings(LISTINGS)).size());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+    }
+
+    // ============ HELPERS ============
+
+    private List<Product> newListings(int count) {
+        List<Product> listings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Product product = new Product("Listing " + (run++), "Imported listing", BigDecimal.valueOf(5 + i % 200),
+                    Product.ProductCondition.GOOD, category, null);
+            product.setImageUrls(new ArrayList<>(List.of("listing" + i + "-1.jpg", "listing" + i + "-2.jpg")));
+            listings.add(product);
+        }
+        return listings;
+    }
+
+    /**
+     * Runs the work in its own committed transaction with the given JDBC batch size
+     */
+    private long inTransaction(int batchSize, Runnable work) {
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            work.run();
+        });
+        return System.nanoTime() - start;
+    }
+
+    private void report(String scenario, int rows, BatchRun batchRun) {
+        for (int batchSize : new int[]{1, 50}) {
+            batchRun.nanos(batchSize); // warm-up
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < RUNS; i++) {
+                best = Math.min(best, batchRun.nanos(batchSize));
+            }
+            System.out.printf("%-24s batch size %2d: %8.1f ms, %9.0f rows/s%n",
+                    scenario, batchSize, best / 1e6, rows / (best / 1e9));
+        }
+    }
+
+    private interface BatchRun {
+        long nanos(int batchSize);
+    }
+}
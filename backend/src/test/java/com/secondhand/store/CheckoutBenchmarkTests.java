@@ -0,0 +1,102 @@
+package com.secondhand.store;
+
+import com.secondhand.store.dto.CheckoutRequest;
+import com.secondhand.store.dto.CheckoutResult;
+import com.secondhand.store.entity.CartItem;
+import com.secondhand.store.entity.Category;
+import com.secondhand.store.entity.Product;
+import com.secondhand.store.entity.User;
+import com.secondhand.store.repository.CartItemRepository;
+import com.secondhand.store.repository.ProductRepository;
+import com.secondhand.store.service.CheckoutService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checkout latency for carts of 1 to 100 items, committed against the real database.
+ * Run with: mvn test -Dtest=CheckoutBenchmarkTests -Dbenchmark=true
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CheckoutBenchmarkTests {
+
+    private static final int[] CART_SIZES = {1, 10, 25, 50, 100};
+    private static final int WARMUP_RUNS = 20;
+    private static final int MEASURED_RUNS = 50;
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void checkoutLatencyByCartSize() throws Exception {
+        Category category = testData.category("Checkout Benchmark");
+        User seller = testData.seller("bench");
+        User buyer = testData.buyer("bench");
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Product product = testData.newProduct("Bench item " + i, BigDecimal.valueOf(10 + i), category, seller);
+            product.setQuantity(1_000_000);
+            products.add(product);
+        }
+        products = productRepository.saveAll(products);
+        CheckoutRequest request = new CheckoutRequest("1 Bench Street", "Berlin", null, "10115", "DE",
+                null, null, null, null);
+
+        System.out.println("cart items | median ms | p95 ms | max ms");
+        for (int size : CART_SIZES) {
+            double[] millis = new double[MEASURED_RUNS];
+            for (int run = 0; run < WARMUP_RUNS + MEASURED_RUNS; run++) {
+                fillCart(buyer, products.subList(0, size));
+                long start = System.nanoTime();
+                CheckoutResult result = checkoutService.checkout(buyer.getId(), request);
+                long elapsed = System.nanoTime() - start;
+                if (run >= WARMUP_RUNS) {
+                    millis[run - WARMUP_RUNS] = elapsed / 1e6;
+                }
+                assertEquals(size, result.lineCount());
+            }
+            Arrays.sort(millis);
+            System.out.printf("%10d | %9.2f | %6.2f | %6.2f%n", size,
+                    millis[MEASURED_RUNS / 2], millis[(int) (MEASURED_RUNS * 0.95)], millis[MEASURED_RUNS - 1]);
+        }
+
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM cart_items WHERE user_id = ?", Integer.class, buyer.getId()));
+    }
+
+    private void fillCart(User buyer, List<Product> products) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<CartItem> cart = new ArrayList<>(products.size());
+            for (Product product : products) {
+                cart.add(new CartItem(buyer, product, 1));
+            }
+            cartItemRepository.saveAll(cart);
+        });
+    }
+}
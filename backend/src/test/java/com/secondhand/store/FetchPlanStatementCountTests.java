@@ -0,0 +1,170 @@
+package com.secondhand.store;
+
+import com.secondhand.store.entity.CartItem;
+import com.secondhand.store.entity.Category;
+import com.secondhand.store.entity.Order;
+import com.secondhand.store.entity.OrderItem;
+import com.secondhand.store.entity.Product;
+import com.secondhand.store.entity.User;
+import com.secondhand.store.repository.CartItemRepository;
+import com.secondhand.store.repository.OrderRepository;
+import com.secondhand.store.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Each read path renders what its page would show (names, seller, images, items)
+ * and must stay within a fixed number of SQL statements, whatever the row count.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.secondhand.store.SqlStatementCounter"
+})
+@Transactional
+class FetchPlanStatementCountTests {
+
+    private static final int PRODUCTS = 6;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private TestData testData;
+
+    private Category category;
+    private User seller;
+    private User buyer;
+    private List<Product> products;
+    private List<Order> orders;
+
+    @BeforeEach
+    void createData() {
+        category = testData.category("Fetch Plan Test");
+        seller = testData.seller("fetchplan");
+        buyer = testData.buyer("fetchplan");
+
+        products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = testData.newProduct("Item " + i, BigDecimal.valueOf(10 + i), category, seller);
+            product.setImageUrls(new ArrayList<>(List.of("item" + i + "-1.jpg", "item" + i + "-2.jpg")));
+            entityManager.persist(product);
+            products.add(product);
+
+            entityManager.persist(new CartItem(buyer, product, 1));
+        }
+
+        orders = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Order order = new Order(buyer, "FETCH-PLAN-" + i, BigDecimal.valueOf(100), "1 Test Street");
+            for (Product product : products) {
+                order.addOrderItem(new OrderItem(order, product, 1));
+            }
+            entityManager.persist(order);
+            orders.add(order);
+        }
+    }
+
+    @Test
+    void productListPage() {
+        assertStatements(3, () -> { // page, count, one batch of images
+            productRepository.findSummaryByIsAvailableTrue(PageRequest.of(0, 4, Sort.by("createdAt")))
+                    .forEach(this::renderProduct);
+        });
+    }
+
+    @Test
+    void productsByCategory() {
+        assertStatements(2, () -> productRepository
+                .findSummaryByCategoryIdAndIsAvailableTrueOrderByCreatedAtDesc(category.getId())
+                .forEach(this::renderProduct));
+    }
+
+    @Test
+    void productDetail() {
+        assertStatements(1, () -> renderProduct(
+                productRepository.findDetailById(products.get(0).getId()).orElseThrow()));
+    }
+
+    @Test
+    void buyerOrderHistory() {
+        assertStatements(1, () -> orderRepository.findWithItemsByBuyerIdOrderByCreatedAtDesc(buyer.getId())
+                .forEach(this::renderOrder));
+    }
+
+    @Test
+    void pagedBuyerOrderHistory() {
+        assertStatements(5, () -> { // page, count, items, then products and sellers in one batch each
+            orderRepository.findByBuyerIdOrderByCreatedAtDesc(buyer.getId(), PageRequest.of(0, 2))
+                    .forEach(this::renderOrder);
+        });
+    }
+
+    @Test
+    void orderDetail() {
+        assertStatements(1, () -> renderOrder(orderRepository.findWithItemsById(orders.get(0).getId()).orElseThrow()));
+    }
+
+    @Test
+    void cartView() {
+        assertStatements(2, () -> { // cart lines with products and sellers, one batch of images
+            List<CartItem> cart = cartItemRepository.findWithProductByUserIdOrderByCreatedAtDesc(buyer.getId());
+            assertEquals(PRODUCTS, cart.size());
+            for (CartItem item : cart) {
+                item.getProduct().getName();
+                item.getProduct().getSeller().getUsername();
+                item.getProduct().getImageUrls().size();
+            }
+        });
+    }
+
+    // ============ HELPERS ============
+
+    private void renderProduct(Product product) {
+        product.getCategory().getName();
+        product.getSeller().getUsername();
+        product.getImageUrls().size();
+    }
+
+    private void renderOrder(Order order) {
+        for (OrderItem item : order.getOrderItems()) {
+            item.getProduct().getName();
+            item.getSeller().getUsername();
+        }
+    }
+
+    /**
+     * Runs the read path against an empty persistence context and checks how many
+     * statements it took.
+     */
+    private void assertStatements(int expected, Runnable readPath) {
+        entityManager.flush();
+        entityManager.clear();
+        SqlStatementCounter.reset();
+
+        readPath.run();
+
+        assertEquals(expected, SqlStatementCounter.count(),
+                "Unexpected number of SQL statements");
+    }
+}
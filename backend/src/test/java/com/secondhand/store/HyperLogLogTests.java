@@ -0,0 +1,118 @@
+package com.secondhand.store;
+
+import com.secondhand.store.service.HyperLogLog;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Estimates stay within a few standard errors (about 0.8%) at every scale, and
+ * the sparse and dense forms agree on merging and serialization.
+ */
+class HyperLogLogTests {
+
+    private static final byte FORMAT_SPARSE = 1;
+    private static final byte FORMAT_DENSE = 2;
+
+    @Test
+    void estimatesAreAccurateAtEveryScale() {
+        assertEstimate(100, 0.02);
+        assertEstimate(10_000, 0.02);
+        assertEstimate(1_000_000, 0.03);
+    }
+
+    @Test
+    void repeatedValuesAreCountedOnce() {
+        HyperLogLog sketch = sketchOf(0, 1000);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 1000; i++) {
+                sketch.offer("viewer-" + i);
+            }
+        }
+        assertEquals(sketchOf(0, 1000).cardinality(), sketch.cardinality());
+    }
+
+    @Test
+    void smallSketchesStaySparseAndLargeOnesGoDense() {
+        byte[] small = sketchOf(0, 1000).toBytes();
+        assertEquals(FORMAT_SPARSE, small[0]);
+        assertTrue(small.length < 4000, "sparse sketch of 1000 values took " + small.length + " bytes");
+
+        byte[] large = sketchOf(0, 20_000).toBytes();
+        assertEquals(FORMAT_DENSE, large[0]);
+        assertEquals(2 + 16384 * 6 / 8, large.length);
+    }
+
+    @Test
+    void mergingAcrossTheSparseLimitMatchesOfferingDirectly() {
+        HyperLogLog merged = sketchOf(0, 3000);
+        merged.merge(sketchOf(3000, 6000));
+
+        byte[] direct = sketchOf(0, 6000).toBytes();
+        assertEquals(FORMAT_DENSE, direct[0]);
+        assertArrayEquals(direct, merged.toBytes());
+    }
+
+    @Test
+    void mergeIsIdempotent() {
+        HyperLogLog sketch = sketchOf(0, 2000);
+        HyperLogLog other = sketchOf(1000, 50_000);
+
+        sketch.merge(other);
+        byte[] once = sketch.toBytes();
+        sketch.merge(other);
+        sketch.merge(sketch);
+
+        assertArrayEquals(once, sketch.toBytes());
+    }
+
+    @Test
+    void mergeIsCommutative() {
+        HyperLogLog[][] pairs = {
+                {sketchOf(0, 500), sketchOf(250, 1500)},          // sparse with sparse
+                {sketchOf(0, 500), sketchOf(250, 30_000)},        // sparse with dense
+                {sketchOf(0, 20_000), sketchOf(10_000, 40_000)}}; // dense with dense
+        for (HyperLogLog[] pair : pairs) {
+            HyperLogLog left = HyperLogLog.fromBytes(pair[0].toBytes());
+            left.merge(pair[1]);
+            HyperLogLog right = HyperLogLog.fromBytes(pair[1].toBytes());
+            right.merge(pair[0]);
+            assertArrayEquals(left.toBytes(), right.toBytes());
+        }
+    }
+
+    @Test
+    void bytesRoundTripInBothFormats() {
+        for (HyperLogLog sketch : new HyperLogLog[]{new HyperLogLog(), sketchOf(0, 1000), sketchOf(0, 100_000)}) {
+            byte[] bytes = sketch.toBytes();
+            HyperLogLog copy = HyperLogLog.fromBytes(bytes);
+            assertArrayEquals(bytes, copy.toBytes());
+            assertEquals(sketch.cardinality(), copy.cardinality());
+            assertEquals(sketch.isEmpty(), copy.isEmpty());
+        }
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[]{FORMAT_DENSE, 12}));
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[]{7, 14}));
+    }
+
+    // ============ HELPERS ============
+
+    private static void assertEstimate(int distinct, double tolerance) {
+        long estimate = sketchOf(0, distinct).cardinality();
+        double error = Math.abs(estimate - distinct) / (double) distinct;
+        assertTrue(error <= tolerance, distinct + " values estimated as " + estimate);
+    }
+
+    /**
+     * Sketch of the viewers numbered from (inclusive) to to (exclusive)
+     */
+    private static HyperLogLog sketchOf(int from, int to) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = from; i < to; i++) {
+            sketch.offer("viewer-" + i);
+        }
+        return sketch;
+    }
+}
@@ -0,0 +1,208 @@
+package com.secondhand.store;
+
+import com.secondhand.store.dto.CheckoutRequest;
+import com.secondhand.store.entity.CartItem;
+import com.secondhand.store.entity.Category;
+import com.secondhand.store.entity.Product;
+import com.secondhand.store.entity.User;
+import com.secondhand.store.repository.CartItemRepository;
+import com.secondhand.store.repository.ProductRepository;
+import com.secondhand.store.service.CheckoutService;
+import com.secondhand.store.service.InventoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stock can't be oversold however many buyers go for the same listing at once,
+ * and expired holds go back to stock.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class InventoryReservationTests {
+
+    private static final int BUYERS = 16;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestData testData;
+
+    private Category category;
+    private User seller;
+    private List<User> buyers;
+
+    @BeforeEach
+    void createData() {
+        category = testData.category("Inventory Test");
+        seller = testData.seller("inv");
+        buyers = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            buyers.add(testData.buyer("inv"));
+        }
+    }
+
+    @Test
+    void hotListingIsNeverOversold() throws Exception {
+        Product product = newProduct(40);
+
+        int reserved = runConcurrently(buyer -> {
+            int held = 0;
+            for (int attempt = 0; attempt < 10; attempt++) {
+                try {
+                    inventoryService.reserve(product.getId(), buyer.getId(), 1);
+                    held++;
+                } catch (Exception e) {
+                    assertTrue(e.getMessage().startsWith("Only 0 left"), e.getMessage());
+                }
+            }
+            return held;
+        });
+
+        assertEquals(40, reserved);
+        assertEquals(0, quantityOf(product));
+        assertEquals(40, jdbcTemplate.queryForObject(
+                "SELECT SUM(quantity) FROM inventory_holds WHERE product_id = ?", Integer.class, product.getId()));
+    }
+
+    @Test
+    void expiredHoldsGoBackToStock() throws Exception {
+        Product product = newProduct(5);
+        inventoryService.reserve(product.getId(), buyers.get(0).getId(), 3);
+        inventoryService.reserve(product.getId(), buyers.get(1).getId(), 2);
+        assertThrows(Exception.class, () -> inventoryService.reserve(product.getId(), buyers.get(2).getId(), 1));
+
+        jdbcTemplate.update("UPDATE inventory_holds SET expires_at = now() - interval '1 minute' " +
+                "WHERE product_id = ? AND user_id = ?", product.getId(), buyers.get(0).getId());
+        inventoryService.releaseExpired();
+
+        assertEquals(3, quantityOf(product));
+        assertEquals(1, inventoryService.getActiveHolds(buyers.get(1).getId()).size());
+    }
+
+    @Test
+    void concurrentCheckoutsOfTheLastItemSellItOnce() throws Exception {
+        Product product = newProduct(1);
+        for (User buyer : buyers) {
+            cartItemRepository.save(new CartItem(buyer, product, 1));
+        }
+        CheckoutRequest request = new CheckoutRequest("1 Test Street", null, null, null, null, null, null, null, null);
+
+        int orders = runConcurrently(buyer -> {
+            try {
+                checkoutService.checkout(buyer.getId(), request);
+                return 1;
+            } catch (Exception e) {
+                return 0;
+            }
+        });
+
+        assertEquals(1, orders);
+        assertEquals(0, quantityOf(product));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM order_items WHERE product_id = ?", Integer.class, product.getId()));
+        assertTrue(productRepository.findById(product.getId()).orElseThrow().getIsSold());
+    }
+
+    @Test
+    void checkoutTakesTheBuyersHolds() throws Exception {
+        Product product = newProduct(3);
+        User buyer = buyers.get(0);
+        cartItemRepository.save(new CartItem(buyer, product, 2));
+        checkoutService.reserveCart(buyer.getId());
+        inventoryService.reserve(product.getId(), buyers.get(1).getId(), 1);
+        assertEquals(0, quantityOf(product));
+
+        checkoutService.checkout(buyer.getId(),
+                new CheckoutRequest("1 Test Street", null, null, null, null, null, null, null, null));
+
+        assertEquals(0, quantityOf(product));
+        assertTrue(inventoryService.getActiveHolds(buyer.getId()).isEmpty());
+        // The other buyer still holds the last unit, so the listing isn't sold yet
+        assertFalse(productRepository.findById(product.getId()).orElseThrow().getIsSold());
+    }
+
+    @Test
+    void cartReservationIsAllOrNothing() throws Exception {
+        Product plenty = newProduct(10);
+        Product scarce = newProduct(1);
+        User buyer = buyers.get(0);
+        cartItemRepository.save(new CartItem(buyer, plenty, 2));
+        cartItemRepository.save(new CartItem(buyer, scarce, 2));
+
+        Exception failure = assertThrows(Exception.class, () -> checkoutService.reserveCart(buyer.getId()));
+
+        assertEquals("Only 1 left of Hot item", failure.getMessage());
+        assertEquals(10, quantityOf(plenty));
+        assertEquals(1, quantityOf(scarce));
+        assertTrue(inventoryService.getActiveHolds(buyer.getId()).isEmpty());
+    }
+
+    // ============ HELPERS ============
+
+    private Product newProduct(int quantity) {
+        return testData.product("Hot item", BigDecimal.valueOf(25), quantity, category, seller);
+    }
+
+    private int quantityOf(Product product) {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM products WHERE id = ?", Integer.class, product.getId());
+    }
+
+    /**
+     * Runs the work once per buyer, all starting together, and sums the results
+     */
+    private int runConcurrently(BuyerTask task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(BUYERS);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (User buyer : buyers) {
+                Callable<Integer> work = () -> {
+                    start.await();
+                    return task.run(buyer);
+                };
+                futures.add(executor.submit(work));
+            }
+            start.countDown();
+            int total = 0;
+            for (Future<Integer> future : futures) {
+                total += future.get();
+            }
+            return total;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface BuyerTask {
+        int run(User buyer) throws Exception;
+    }
+}
@@ -0,0 +1,187 @@
+package com.secondhand.store;
+
+import com.secondhand.store.dto.CheckoutRequest;
+import com.secondhand.store.dto.CheckoutResult;
+import com.secondhand.store.dto.FulfillmentReport;
+import com.secondhand.store.dto.TrackingUpdate;
+import com.secondhand.store.entity.CartItem;
+import com.secondhand.store.entity.Order;
+import com.secondhand.store.entity.Product;
+import com.secondhand.store.entity.User;
+import com.secondhand.store.repository.CartItemRepository;
+import com.secondhand.store.repository.OrderRepository;
+import com.secondhand.store.repository.ProductRepository;
+import com.secondhand.store.service.CheckoutService;
+import com.secondhand.store.service.OrderFulfillmentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bulk tracking imports and status changes apply valid rows and report the rest row by row.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class OrderFulfillmentTests {
+
+    @Autowired
+    private OrderFulfillmentService orderFulfillmentService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestData testData;
+
+    private String suffix;
+    private User buyer;
+
+    @BeforeEach
+    void createData() {
+        suffix = testData.unique();
+        buyer = testData.buyer("ful");
+    }
+
+    @Test
+    void trackingImportShipsOrdersAcrossChunks() {
+        List<Order> orders = newOrders(2500);
+
+        FulfillmentReport report = orderFulfillmentService.importTracking(orders.stream()
+                .map(order -> new TrackingUpdate(order.getOrderNumber(), "TRK" + order.getId(), "Royal Mail")));
+
+        assertEquals(2500, report.received());
+        assertEquals(2500, report.updated());
+        assertEquals(List.of(), report.failures());
+        assertEquals(2500, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders WHERE buyer_id = ? " +
+                "AND order_status = 'SHIPPED' AND tracking_number = 'TRK' || id AND shipped_at IS NOT NULL",
+                Integer.class, buyer.getId()));
+
+        // Uploading the same file again changes nothing
+        FulfillmentReport again = orderFulfillmentService.importTracking(orders.stream()
+                .map(order -> new TrackingUpdate(order.getOrderNumber(), "TRK" + order.getId(), "Royal Mail")));
+        assertEquals(0, again.updated());
+        assertEquals(2500, again.unchanged());
+    }
+
+    @Test
+    void badRowsAreReportedWithoutStoppingTheImport() {
+        List<Order> orders = newOrders(4);
+        jdbcTemplate.update("UPDATE orders SET order_status = 'CANCELLED' WHERE id = ?", orders.get(1).getId());
+
+        FulfillmentReport report = orderFulfillmentService.importTracking(Stream.of(
+                new TrackingUpdate(orders.get(0).getOrderNumber(), "TRK1", "DHL"),
+                new TrackingUpdate(orders.get(1).getOrderNumber(), "TRK2", "DHL"),
+                new TrackingUpdate("NO-SUCH-ORDER-" + suffix, "TRK3", "DHL"),
+                new TrackingUpdate(orders.get(2).getOrderNumber(), " ", "DHL"),
+                new TrackingUpdate(orders.get(0).getOrderNumber(), "TRK5", "DHL"),
+                new TrackingUpdate(orders.get(3).getOrderNumber(), "TRK6", null)));
+
+        assertEquals(6, report.received());
+        assertEquals(2, report.updated());
+        assertEquals(List.of(
+                new FulfillmentReport.Failure(2, orders.get(1).getOrderNumber(), "Cannot change a CANCELLED order to SHIPPED"),
+                new FulfillmentReport.Failure(3, "NO-SUCH-ORDER-" + suffix, "Order not found"),
+                new FulfillmentReport.Failure(4, orders.get(2).getOrderNumber(), "Tracking number is required"),
+                new FulfillmentReport.Failure(5, orders.get(0).getOrderNumber(), "Duplicate of row 1")),
+                report.failures());
+        assertEquals("TRK1", orderRepository.findById(orders.get(0).getId()).orElseThrow().getTrackingNumber());
+    }
+
+    @Test
+    void deliveredOrdersReachTheRollups() throws Exception {
+        List<Order> orders = newOrders(3);
+        BigDecimal before = deliveredToday();
+
+        FulfillmentReport report = orderFulfillmentService.bulkTransition(
+                orders.stream().map(Order::getOrderNumber), Order.OrderStatus.DELIVERED);
+
+        assertEquals(3, report.updated());
+        assertEquals(0, before.add(BigDecimal.valueOf(30)).compareTo(deliveredToday()));
+        Order delivered = orderRepository.findById(orders.get(0).getId()).orElseThrow();
+        assertEquals(Order.OrderStatus.DELIVERED, delivered.getOrderStatus());
+        assertNotNull(delivered.getDeliveredAt());
+
+        // Delivered orders can no longer be cancelled
+        FulfillmentReport cancel = orderFulfillmentService.bulkTransition(
+                Stream.of(orders.get(0).getOrderNumber()), Order.OrderStatus.CANCELLED);
+        assertEquals("Cannot change a DELIVERED order to CANCELLED", cancel.failures().get(0).reason());
+        assertThrows(Exception.class, () -> orderFulfillmentService.bulkTransition(
+                Stream.of(orders.get(1).getOrderNumber()), Order.OrderStatus.SHIPPED));
+    }
+
+    @Test
+    void refundedOrdersLeaveTheRollups() throws Exception {
+        List<Order> orders = newOrders(2);
+        BigDecimal before = deliveredToday();
+        orderFulfillmentService.bulkTransition(orders.stream().map(Order::getOrderNumber), Order.OrderStatus.DELIVERED);
+
+        FulfillmentReport report = orderFulfillmentService.bulkTransition(
+                orders.stream().map(Order::getOrderNumber), Order.OrderStatus.REFUNDED);
+
+        assertEquals(2, report.updated());
+        assertEquals(0, before.compareTo(deliveredToday()));
+        // Refunding again changes nothing, so nothing is taken out twice
+        assertEquals(2, orderFulfillmentService.bulkTransition(
+                orders.stream().map(Order::getOrderNumber), Order.OrderStatus.REFUNDED).unchanged());
+        assertEquals(0, before.compareTo(deliveredToday()));
+    }
+
+    @Test
+    void cancelledOrdersGiveTheirUnitsBack() throws Exception {
+        Product product = testData.product("Last lamp", BigDecimal.valueOf(25), 2,
+                testData.category("Fulfillment Test"), testData.seller("ful"));
+        cartItemRepository.save(new CartItem(buyer, product, 2));
+        CheckoutResult checkout = checkoutService.checkout(buyer.getId(),
+                new CheckoutRequest("1 Test Street", null, null, null, null, null, null, null, null));
+        assertTrue(productRepository.findById(product.getId()).orElseThrow().getIsSold());
+
+        FulfillmentReport report = orderFulfillmentService.bulkTransition(
+                Stream.of(checkout.orderNumber(), checkout.orderNumber()), Order.OrderStatus.CANCELLED);
+
+        assertEquals(1, report.updated());
+        Product reopened = productRepository.findById(product.getId()).orElseThrow();
+        assertEquals(2, reopened.getQuantity());
+        assertFalse(reopened.getIsSold());
+        assertTrue(reopened.getIsAvailable());
+        assertNotNull(orderRepository.findById(checkout.orderId()).orElseThrow().getCancelledAt());
+    }
+
+    // ============ HELPERS ============
+
+    private List<Order> newOrders(int count) {
+        List<Order> orders = new ArrayList<>(count);
+        IntStream.range(0, count).forEach(i -> orders.add(new Order(buyer, "FUL-" + suffix + "-" + i,
+                BigDecimal.TEN, "1 Test Street")));
+        return orderRepository.saveAll(orders);
+    }
+
+    private BigDecimal deliveredToday() {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(total_amount), 0) FROM daily_sales " +
+                "WHERE sales_date = CURRENT_DATE", BigDecimal.class);
+    }
+}
@@ -0,0 +1,106 @@
+package com.secondhand.store;
+
+import com.secondhand.store.service.OrderNumberGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderNumberGeneratorTests {
+
+    private static final int THREADS = 8;
+    private static final int PER_THREAD = 500_000;
+
+    @Test
+    void concurrentIdsAreUniqueAndIncreasingPerThread() throws Exception {
+        OrderNumberGenerator generator = new OrderNumberGenerator(7);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    long[] ids = new long[PER_THREAD];
+                    start.await();
+                    for (int i = 0; i < PER_THREAD; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+            start.countDown();
+
+            long[] all = new long[THREADS * PER_THREAD];
+            int at = 0;
+            for (Future<long[]> future : futures) {
+                long[] ids = future.get();
+                for (int i = 1; i < ids.length; i++) {
+                    assertTrue(ids[i] > ids[i - 1], "Ids must increase within a thread");
+                }
+                System.arraycopy(ids, 0, all, at, ids.length);
+                at += ids.length;
+            }
+
+            Arrays.sort(all);
+            for (int i = 1; i < all.length; i++) {
+                assertTrue(all[i] != all[i - 1], "Duplicate id " + all[i]);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void nodesNeverCollide() {
+        OrderNumberGenerator first = new OrderNumberGenerator(1);
+        OrderNumberGenerator second = new OrderNumberGenerator(2);
+        long[] ids = new long[200_000];
+        for (int i = 0; i < ids.length; i += 2) {
+            ids[i] = first.nextId();
+            ids[i + 1] = second.nextId();
+        }
+        assertEquals(ids.length, Arrays.stream(ids).distinct().count());
+    }
+
+    @Test
+    void numbersSortByTimeAndRoundTrip() {
+        OrderNumberGenerator generator = new OrderNumberGenerator(1023);
+        Instant before = Instant.now().minusMillis(1);
+        String previous = generator.next();
+        for (int i = 0; i < 100_000; i++) {
+            String number = generator.next();
+            assertTrue(number.compareTo(previous) > 0, number + " should sort after " + previous);
+            assertEquals(number, OrderNumberGenerator.encode(OrderNumberGenerator.decode(number)));
+            previous = number;
+        }
+        assertEquals(17, previous.length());
+        assertTrue(previous.startsWith("ORD-"));
+
+        Instant issued = OrderNumberGenerator.timestampOf(OrderNumberGenerator.decode(previous));
+        assertTrue(!issued.isBefore(before) && issued.isBefore(Instant.now().plus(Duration.ofSeconds(5))));
+    }
+
+    @Test
+    void decodeAcceptsLookAlikesAndRejectsGarbage() {
+        String number = OrderNumberGenerator.encode(0x1234_5678_9ABCL);
+        String typed = number.toLowerCase().replace('0', 'o').replace('1', 'l');
+        assertEquals(0x1234_5678_9ABCL, OrderNumberGenerator.decode(typed));
+
+        assertThrows(IllegalArgumentException.class, () -> OrderNumberGenerator.decode("ORD-123"));
+        assertThrows(IllegalArgumentException.class, () -> OrderNumberGenerator.decode("ORD-UUUUUUUUUUUUU"));
+        assertThrows(IllegalArgumentException.class, () -> new OrderNumberGenerator(1024));
+        // Unset: no default that several instances could end up sharing
+        assertThrows(IllegalArgumentException.class, () -> new OrderNumberGenerator(-1));
+    }
+}
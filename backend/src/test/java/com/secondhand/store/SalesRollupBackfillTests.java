@@ -0,0 +1,76 @@
+package com.secondhand.store;
+
+import com.secondhand.store.dto.FulfillmentReport;
+import com.secondhand.store.entity.Order;
+import com.secondhand.store.entity.User;
+import com.secondhand.store.repository.OrderRepository;
+import com.secondhand.store.service.OrderFulfillmentService;
+import com.secondhand.store.service.SalesRollupService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The nightly backfill commits chunk by chunk, so deliveries made while it runs
+ * wait for one chunk at most rather than for the whole backfill.
+ */
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "store.sales-rollup.backfill-days=10000"})
+class SalesRollupBackfillTests {
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private OrderFulfillmentService orderFulfillmentService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void deliveriesAreNotBlockedByARunningBackfill() throws Exception {
+        User buyer = testData.buyer("bf");
+        Order order = orderRepository.save(new Order(buyer, "BF-" + testData.unique(), BigDecimal.TEN, "1 Test Street"));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // About 27 years of days, a few hundred chunks
+            Future<?> backfill = executor.submit(salesRollupService::scheduledBackfill);
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!backfill.isDone() && System.currentTimeMillis() < deadline && jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM pg_locks WHERE locktype = 'advisory' AND mode = 'ExclusiveLock'",
+                    Integer.class) == 0) {
+                Thread.sleep(5);
+            }
+            assertFalse(backfill.isDone(), "backfill finished before a delivery could overlap it");
+
+            FulfillmentReport report = orderFulfillmentService.bulkTransition(
+                    Stream.of(order.getOrderNumber()), Order.OrderStatus.DELIVERED);
+
+            assertEquals(1, report.updated());
+            assertFalse(backfill.isDone(), "delivery waited for the whole backfill");
+            backfill.get(2, TimeUnit.MINUTES);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(jdbcTemplate.queryForObject("SELECT total_amount >= 10 FROM daily_sales " +
+                "WHERE sales_date = CURRENT_DATE", Boolean.class));
+    }
+}
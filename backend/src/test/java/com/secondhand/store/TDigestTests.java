@@ -0,0 +1,137 @@
+package com.secondhand.store;
+
+import com.secondhand.store.service.TDigest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Quantiles stay within a small rank error on uniform and skewed input, merged
+ * digests agree with one fed everything, and the size stays bounded.
+ */
+class TDigestTests {
+
+    private static final double COMPRESSION = 100;
+    private static final double[] QUANTILES = {0.001, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999};
+
+    @Test
+    void emptyDigestHasNoQuantiles() {
+        TDigest digest = new TDigest(COMPRESSION);
+        assertEquals(0, digest.count());
+        assertEquals(0, digest.centroidCount());
+        assertTrue(Double.isNaN(digest.quantile(0.5)));
+    }
+
+    @Test
+    void singleValueIsEveryQuantile() {
+        TDigest digest = new TDigest(COMPRESSION);
+        digest.add(42.5);
+        for (double q : new double[]{0, 0.001, 0.5, 0.999, 1}) {
+            assertEquals(42.5, digest.quantile(q));
+        }
+    }
+
+    @Test
+    void uniformQuantilesAreAccurate() {
+        double[] values = new Random(1).doubles(100_000, 0, 1000).toArray();
+        assertRankErrors(digestOf(values), values);
+    }
+
+    @Test
+    void skewedQuantilesAreAccurate() {
+        // Log-normal, like prices: most values small, a long tail of expensive ones
+        Random random = new Random(2);
+        double[] values = new double[100_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.exp(random.nextGaussian() * 1.5 + 3);
+        }
+        TDigest digest = digestOf(values);
+        assertRankErrors(digest, values);
+        assertEquals(Arrays.stream(values).min().orElseThrow(), digest.quantile(0));
+        assertEquals(Arrays.stream(values).max().orElseThrow(), digest.quantile(1));
+    }
+
+    @Test
+    void mergedDigestsMatchOneDigestOfAllValues() {
+        Random random = new Random(3);
+        double[] values = new double[100_000];
+        TDigest[] parts = {new TDigest(COMPRESSION), new TDigest(COMPRESSION), new TDigest(COMPRESSION)};
+        for (int i = 0; i < values.length; i++) {
+            // Parts see different ranges, as digests of different categories would
+            values[i] = i % 3 == 0 ? random.nextDouble() * 100 : Math.exp(random.nextGaussian() + 5);
+            parts[i % 3].add(values[i]);
+        }
+
+        TDigest merged = new TDigest(COMPRESSION);
+        for (TDigest part : parts) {
+            merged.merge(part);
+        }
+
+        assertEquals(values.length, merged.count());
+        assertRankErrors(merged, values);
+        assertEquals(Arrays.stream(values).max().orElseThrow(), merged.quantile(1));
+    }
+
+    @Test
+    void sizeIsBoundedByCompression() {
+        TDigest digest = new TDigest(COMPRESSION);
+        Random random = new Random(4);
+        for (int i = 0; i < 1_000_000; i++) {
+            digest.add(Math.exp(random.nextGaussian()));
+        }
+        int centroids = digest.centroidCount();
+        assertTrue(centroids <= COMPRESSION, "1M values took " + centroids + " centroids");
+        assertTrue(centroids >= COMPRESSION / 2, "1M values took only " + centroids + " centroids");
+    }
+
+    @Test
+    void invalidInputIsRejected() {
+        TDigest digest = new TDigest(COMPRESSION);
+        assertThrows(IllegalArgumentException.class, () -> digest.add(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> digest.add(1, 0));
+        assertThrows(IllegalArgumentException.class, () -> digest.quantile(1.5));
+    }
+
+    // ============ HELPERS ============
+
+    private static TDigest digestOf(double[] values) {
+        TDigest digest = new TDigest(COMPRESSION);
+        for (double value : values) {
+            digest.add(value);
+        }
+        return digest;
+    }
+
+    /**
+     * The fraction of values below each estimate is close to its quantile; the
+     * tolerance is tighter towards the tails, where the digest keeps more detail
+     */
+    private static void assertRankErrors(TDigest digest, double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double q : QUANTILES) {
+            double estimate = digest.quantile(q);
+            int below = lowerBound(sorted, estimate);
+            double rank = (double) below / sorted.length;
+            double tolerance = Math.max(0.02 * Math.sqrt(q * (1 - q)), 0.0005);
+            assertTrue(Math.abs(rank - q) <= tolerance,
+                    "q=" + q + " estimated " + estimate + " at rank " + rank);
+        }
+    }
+
+    private static int lowerBound(double[] sorted, double value) {
+        int at = Arrays.binarySearch(sorted, value);
+        if (at < 0) {
+            return -at - 1;
+        }
+        while (at > 0 && sorted[at - 1] == value) {
+            at--;
+        }
+        return at;
+    }
+}
@@ -0,0 +1,71 @@
+package com.secondhand.store;
+
+import com.secondhand.store.entity.Category;
+import com.secondhand.store.entity.Product;
+import com.secondhand.store.entity.User;
+import com.secondhand.store.repository.CategoryRepository;
+import com.secondhand.store.repository.ProductRepository;
+import com.secondhand.store.repository.UserRepository;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixtures shared by the database tests: users, categories and products with
+ * names that are unique per call, so tests can commit without clashing.
+ */
+@Component
+public class TestData {
+
+    private static final long RUN = System.nanoTime();
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final UserRepository userRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductRepository productRepository;
+
+    public TestData(UserRepository userRepository, CategoryRepository categoryRepository,
+                    ProductRepository productRepository) {
+        this.userRepository = userRepository;
+        this.categoryRepository = categoryRepository;
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * A suffix no other call returns, for names, emails and order numbers
+     */
+    public String unique() {
+        return RUN + "_" + SEQUENCE.incrementAndGet();
+    }
+
+    public Category category(String name) {
+        return categoryRepository.save(new Category(name + " " + unique()));
+    }
+
+    public User seller(String prefix) {
+        return user(prefix + "_seller_", "Sam", "Seller");
+    }
+
+    public User buyer(String prefix) {
+        return user(prefix + "_buyer_", "Bea", "Buyer");
+    }
+
+    /**
+     * An unsaved GOOD-condition product, for tests that set more fields or save in bulk
+     */
+    public Product newProduct(String name, BigDecimal price, Category category, User seller) {
+        return new Product(name, "Description of " + name, price, Product.ProductCondition.GOOD, category, seller);
+    }
+
+    public Product product(String name, BigDecimal price, int quantity, Category category, User seller) {
+        Product product = newProduct(name, price, category, seller);
+        product.setQuantity(quantity);
+        return productRepository.save(product);
+    }
+
+    private User user(String prefix, String firstName, String lastName) {
+        String username = prefix + unique();
+        return userRepository.save(new User(username, username + "@example.com", "password1", firstName, lastName));
+    }
+}